@@ -36,6 +36,7 @@ public class GlideBlurActivity extends AppCompatActivity {
                          * new BlurTransformation()
                          * new BlurTransformation(float blurRadius)
                          * new BlurTransformation(float blurRadius, float roundedCorners)
+                         * new BlurTransformation(float blurRadius, float roundedCorners, float downsampleFactor, boolean upscale)
                          */
                         new BlurTransformation(24f, 50)
                 ))
@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025-2026 Donny Yale
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ===========================================
+ * Project: QmBlurView
+ * Created Date: 2025-10-21
+ * Author: Donny Yale
+ * GitHub: https://github.com/QmDeve/QmBlurView
+ * Website: https://blurview.qmdeve.com
+ * ===========================================
+ */
+
+package com.qmdeve.blurview;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The int[] and direct buffer entry points blur in place and respect their strides.
+ * Argument checks run without the native library, see BlurNativeArgumentsTest
+ */
+@RunWith(AndroidJUnit4.class)
+public class BlurNativeBufferTest {
+
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+    private static final int STRIDE = WIDTH + 8;
+    private static final int PADDING = 0x12345678;
+
+    private static int[] noise(int stride, int width, int height) {
+        Random random = new Random(7);
+        int[] pixels = new int[stride * height];
+        Arrays.fill(pixels, PADDING);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y * stride + x] = 0x80000000 | random.nextInt(0x1000000);
+            }
+        }
+        return pixels;
+    }
+
+    @Test
+    public void intArrayAndDirectBufferGiveTheSameBlur() {
+        BlurNative blur = new BlurNative();
+        int[] input = noise(STRIDE, WIDTH, HEIGHT);
+
+        int[] pixels = input.clone();
+        blur.blur(pixels, 0, STRIDE, WIDTH, HEIGHT, 10f, 2);
+
+        // Color ints in little-endian memory are BGRA
+        ByteBuffer buffer = ByteBuffer.allocateDirect(input.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asIntBuffer().put(input);
+        blur.blur(buffer, WIDTH, HEIGHT, STRIDE * 4, BlurNative.CHANNELS_BGRA, 10f, 2);
+        int[] buffered = new int[input.length];
+        buffer.asIntBuffer().get(buffered);
+
+        assertFalse("Pixels were not blurred", Arrays.equals(input, pixels));
+        assertArrayEquals(pixels, buffered);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < STRIDE; x++) {
+                int i = y * STRIDE + x;
+                if (x < WIDTH) {
+                    assertEquals("Alpha changed at " + i, input[i] >>> 24, pixels[i] >>> 24);
+                } else {
+                    assertEquals("Padding changed at " + i, PADDING, pixels[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025-2026 Donny Yale
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ===========================================
+ * Project: QmBlurView
+ * Created Date: 2025-10-21
+ * Author: Donny Yale
+ * GitHub: https://github.com/QmDeve/QmBlurView
+ * Website: https://blurview.qmdeve.com
+ * ===========================================
+ */
+
+package com.qmdeve.blurview;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many threads blurring through one shared BlurNative must each get a complete blur
+ */
+@RunWith(AndroidJUnit4.class)
+public class BlurNativeConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int SIZE = 96;
+
+    static Bitmap noise(int width, int height, long seed) {
+        Random random = new Random(seed);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) pixels[i] = 0xFF000000 | random.nextInt(0x1000000);
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        bitmap.setPixels(pixels, 0, width, 0, 0, width, height);
+        return bitmap;
+    }
+
+    @Test
+    public void concurrentBlursMatchSequentialOnes() throws Exception {
+        BlurNative blur = new BlurNative();
+        List<Bitmap> inputs = new ArrayList<>();
+        List<Bitmap> expected = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Bitmap input = noise(SIZE + i, SIZE, i);
+            Bitmap reference = Bitmap.createBitmap(input.getWidth(), input.getHeight(), Bitmap.Config.ARGB_8888);
+            blur.blur(input, reference, radiusOf(i), roundsOf(i));
+            inputs.add(input);
+            expected.add(reference);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Bitmap>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            final int index = i;
+            results.add(executor.submit(() -> {
+                Bitmap input = inputs.get(index);
+                Bitmap output = Bitmap.createBitmap(input.getWidth(), input.getHeight(), Bitmap.Config.ARGB_8888);
+                start.await();
+                blur.blur(input, output, radiusOf(index), roundsOf(index));
+                return output;
+            }));
+        }
+        start.countDown();
+
+        for (int i = 0; i < THREADS; i++) {
+            Bitmap output = results.get(i).get(30, TimeUnit.SECONDS);
+            assertFalse("Output " + i + " was not blurred", output.sameAs(inputs.get(i)));
+            assertTrue("Output " + i + " differs from a sequential blur", output.sameAs(expected.get(i)));
+        }
+        executor.shutdown();
+    }
+
+    private static float radiusOf(int index) {
+        return 4 + index % 10;
+    }
+
+    private static int roundsOf(int index) {
+        return 1 + index % 3;
+    }
+}
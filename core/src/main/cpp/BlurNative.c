@@ -34,6 +34,7 @@
 #include <string.h>
 #include <stdio.h>
 #include <stdlib.h>
+#include <math.h>
 #include <android/log.h>
 #include <android/bitmap.h>
 
@@ -86,13 +87,87 @@ static unsigned char const qmblur_shr[255] =
         24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24, 24
 };
 
+/**
+ * Anti-aliased coverage of a pixel by a rounded rect spanning the whole bitmap
+ * @return 0 (outside) .. 256 (inside)
+ */
+static inline unsigned int qmCornerCoverage(unsigned int x, unsigned int y,
+                                            unsigned int w, unsigned int h, float r)
+{
+    float px = x + 0.5f;
+    float py = y + 0.5f;
+    float cx, cy;
+
+    if (px < r) cx = r;
+    else if (px > w - r) cx = w - r;
+    else return 256;
+
+    if (py < r) cy = r;
+    else if (py > h - r) cy = h - r;
+    else return 256;
+
+    float dx = px - cx;
+    float dy = py - cy;
+    float c = r - sqrtf(dx * dx + dy * dy) + 0.5f;
+    if (c >= 1.0f) return 256;
+    if (c <= 0.0f) return 0;
+    return (unsigned int)(c * 256.0f);
+}
+
+/**
+ * Post effects applied by the final vertical pass while it writes each pixel
+ */
+typedef struct {
+    unsigned int tint;       // ARGB color composited over the blur, 0 for none
+    unsigned int saturation; // 256 = unchanged, 512 = twice as saturated
+    unsigned int noise;      // Grain amplitude, 0 for none, 255 = +-127
+} QmEffects;
+
+/**
+ * Saturation, tint and grain of one premultiplied pixel, in the order they would be drawn
+ */
+static inline void qmApplyEffects(unsigned char* p, unsigned int x, unsigned int y, const QmEffects* fx)
+{
+    int c, a = p[3];
+    int v[3] = { p[0], p[1], p[2] };
+
+    if (fx->saturation != 256)
+    {
+        int luma = (v[0] * 77 + v[1] * 150 + v[2] * 29) >> 8;
+        for (c = 0; c < 3; c++) v[c] = luma + (((v[c] - luma) * (int)fx->saturation) >> 8);
+    }
+
+    unsigned int ta = fx->tint >> 24;
+    if (ta)
+    {
+        int tc[3] = { (fx->tint >> 16) & 0xff, (fx->tint >> 8) & 0xff, fx->tint & 0xff };
+        for (c = 0; c < 3; c++) v[c] = (tc[c] * ta + v[c] * (255 - ta) + 127) / 255;
+        a = ta + (a * (255 - ta) + 127) / 255;
+    }
+
+    if (fx->noise)
+    {
+        // Stable per pixel grain, the same pattern every frame so it does not shimmer
+        unsigned int n = x * 374761393u + y * 668265263u;
+        n = (n ^ (n >> 13)) * 1274126177u;
+        int d = ((int)((n >> 16) & 0xff) - 128) * (int)fx->noise / 256;
+        for (c = 0; c < 3; c++) v[c] += d;
+    }
+
+    // Premultiplied colors never exceed alpha
+    for (c = 0; c < 3; c++) p[c] = (unsigned char)clamp(v[c], 0, a);
+    p[3] = (unsigned char)a;
+}
+
 void qmblurJob(unsigned char* src,
                   unsigned int w,
                   unsigned int h,
                   unsigned int radius,
                   int cores,
                   int core,
-                  int step)
+                  int step,
+                  float corner,
+                  const QmEffects* fx)
 {
     unsigned int x, y, xp, yp, i;
     unsigned int sp;
@@ -276,6 +351,19 @@ void qmblurJob(unsigned char* src,
                 dst_ptr[0] = (unsigned char)clamp((sum_r * mul_sum) >> shr_sum, 0, 255);
                 dst_ptr[1] = (unsigned char)clamp((sum_g * mul_sum) >> shr_sum, 0, 255);
                 dst_ptr[2] = (unsigned char)clamp((sum_b * mul_sum) >> shr_sum, 0, 255);
+                if (fx) qmApplyEffects(dst_ptr, x, y, fx);
+                if (corner > 0.0f)
+                {
+                    // Rounded corners, premultiplied pixels scale all channels by the coverage
+                    unsigned int cov = qmCornerCoverage(x, y, w, h, corner);
+                    if (cov < 256)
+                    {
+                        dst_ptr[0] = (unsigned char)((dst_ptr[0] * cov) >> 8);
+                        dst_ptr[1] = (unsigned char)((dst_ptr[1] * cov) >> 8);
+                        dst_ptr[2] = (unsigned char)((dst_ptr[2] * cov) >> 8);
+                        dst_ptr[3] = (unsigned char)((dst_ptr[3] * cov) >> 8);
+                    }
+                }
                 dst_ptr += w4;
 
                 sum_r -= sum_out_r;
@@ -323,6 +411,408 @@ void qmblurJob(unsigned char* src,
     }
 }
 
+/**
+ * Stack blur over any interleaved layout, used for YUV planes and raw pixel buffers
+ * @param base First byte of the first channel of the first pixel
+ * @param rowStride Bytes between rows
+ * @param pixelStride Bytes between pixels of a row
+ * @param channels Number of consecutive bytes per pixel that are blurred (1-4)
+ * @param step 1 = horizontal pass over rows, 2 = vertical pass over columns
+ */
+void qmblurChannels(unsigned char* base,
+                    unsigned int w,
+                    unsigned int h,
+                    unsigned int rowStride,
+                    unsigned int pixelStride,
+                    unsigned int channels,
+                    unsigned int radius,
+                    int cores,
+                    int core,
+                    int step)
+{
+    unsigned int i, c, n, xp, sp, qm_start;
+    unsigned long sum[4], sum_in[4], sum_out[4];
+    unsigned char* qm_ptr;
+    unsigned char* src_ptr;
+    unsigned char* dst_ptr;
+
+    if (channels < 1 || channels > 4 || w == 0 || h == 0) return;
+    if (radius < 1) radius = 1;
+    if (radius > 254) radius = 254;
+
+    unsigned int div = (radius * 2) + 1;
+    unsigned int mul_sum = qmblur_mul[radius];
+    unsigned char shr_sum = qmblur_shr[radius];
+
+    // Horizontal: each line is a row, walking pixels. Vertical: each line is a column, walking rows
+    unsigned int lines = step == 1 ? h : w;
+    unsigned int len = step == 1 ? w : h;
+    unsigned int lineStride = step == 1 ? rowStride : pixelStride;
+    unsigned int itemStride = step == 1 ? pixelStride : rowStride;
+    unsigned int lm = len - 1;
+    unsigned int minL = core * lines / cores;
+    unsigned int maxL = (core + 1) * lines / cores;
+
+    unsigned char* qm = (unsigned char*)malloc(div * channels);
+    if (!qm) return;
+
+    for (n = minL; n < maxL; n++)
+    {
+        unsigned char* line = base + (size_t)n * lineStride;
+        for (c = 0; c < channels; c++) sum[c] = sum_in[c] = sum_out[c] = 0;
+
+        src_ptr = line;
+        for (i = 0; i <= radius; i++)
+        {
+            qm_ptr = &qm[i * channels];
+            for (c = 0; c < channels; c++)
+            {
+                qm_ptr[c] = src_ptr[c];
+                sum[c] += src_ptr[c] * (i + 1);
+                sum_out[c] += src_ptr[c];
+            }
+        }
+        for (i = 1; i <= radius; i++)
+        {
+            if (i <= lm) src_ptr += itemStride;
+            qm_ptr = &qm[channels * (i + radius)];
+            for (c = 0; c < channels; c++)
+            {
+                qm_ptr[c] = src_ptr[c];
+                sum[c] += src_ptr[c] * (radius + 1 - i);
+                sum_in[c] += src_ptr[c];
+            }
+        }
+
+        sp = radius;
+        xp = radius;
+        if (xp > lm) xp = lm;
+        src_ptr = line + (size_t)xp * itemStride;
+        dst_ptr = line;
+        for (i = 0; i < len; i++)
+        {
+            for (c = 0; c < channels; c++)
+            {
+                dst_ptr[c] = (unsigned char)clamp((sum[c] * mul_sum) >> shr_sum, 0, 255);
+                sum[c] -= sum_out[c];
+            }
+            dst_ptr += itemStride;
+
+            qm_start = sp + div - radius;
+            if (qm_start >= div) qm_start -= div;
+            qm_ptr = &qm[channels * qm_start];
+
+            if (xp < lm)
+            {
+                src_ptr += itemStride;
+                ++xp;
+            }
+
+            for (c = 0; c < channels; c++)
+            {
+                sum_out[c] -= qm_ptr[c];
+                qm_ptr[c] = src_ptr[c];
+                sum_in[c] += src_ptr[c];
+                sum[c] += sum_in[c];
+            }
+
+            ++sp;
+            if (sp >= div) sp = 0;
+            qm_ptr = &qm[sp * channels];
+
+            for (c = 0; c < channels; c++)
+            {
+                sum_out[c] += qm_ptr[c];
+                sum_in[c] -= qm_ptr[c];
+            }
+        }
+    }
+    free(qm);
+}
+
+/**
+ * Blur strength of a pixel along the progressive direction
+ * @return 0 at the sharp end to 255 at the fully blurred end
+ */
+static inline unsigned int qmProgress(unsigned int x, unsigned int y,
+                                      unsigned int w, unsigned int h, int direction)
+{
+    unsigned int pos, len;
+    if (direction == 2 || direction == 3) {
+        pos = x;
+        len = w;
+    } else {
+        pos = y;
+        len = h;
+    }
+    unsigned int t = len > 1 ? (pos * 255 + (len - 1) / 2) / (len - 1) : 255;
+    // 0 = bottom to top, 2 = right to left, the blur grows against the axis
+    return direction == 0 || direction == 2 ? 255 - t : t;
+}
+
+/**
+ * Box blur whose radius follows the progressive direction, from 0 at the sharp end to
+ * maxRadius at the other. Each line is summed once, any window is then two lookups.
+ * The final pass also fades alpha with the strength and composites the overlay color
+ * over it, producing the finished premultiplied pixels
+ * @param maxRadius Radius at the fully blurred end
+ * @param direction 0 = bottom to top, 1 = top to bottom, 2 = right to left, 3 = left to right
+ * @param overlay ARGB overlay color, its alpha follows the strength
+ * @param step 1 = horizontal pass over rows, 2 = vertical pass over columns
+ * @param finish Whether this is the final pass
+ */
+void qmblurProgressive(unsigned char* src,
+                       unsigned int w,
+                       unsigned int h,
+                       unsigned int maxRadius,
+                       int direction,
+                       unsigned int overlay,
+                       int cores,
+                       int core,
+                       int step,
+                       int finish)
+{
+    unsigned int i, c, n;
+
+    if (w == 0 || h == 0) return;
+
+    unsigned int lines = step == 1 ? h : w;
+    unsigned int len = step == 1 ? w : h;
+    unsigned int itemStride = step == 1 ? 4 : w * 4;
+    unsigned int lineStride = step == 1 ? w * 4 : 4;
+    unsigned int minL = core * lines / cores;
+    unsigned int maxL = (core + 1) * lines / cores;
+
+    unsigned int oa = (overlay >> 24) & 0xff;
+    unsigned int oc[3] = { (overlay >> 16) & 0xff, (overlay >> 8) & 0xff, overlay & 0xff };
+
+    // Running sums of R, G and B, sum[c][i] holds the first i pixels
+    unsigned int* sum = (unsigned int*)malloc(sizeof(unsigned int) * (len + 1) * 3);
+    if (!sum) return;
+
+    for (n = minL; n < maxL; n++)
+    {
+        unsigned char* line = src + (size_t)n * lineStride;
+        unsigned char* ptr = line;
+        for (c = 0; c < 3; c++) sum[c * (len + 1)] = 0;
+        for (i = 0; i < len; i++, ptr += itemStride)
+        {
+            for (c = 0; c < 3; c++) sum[c * (len + 1) + i + 1] = sum[c * (len + 1) + i] + ptr[c];
+        }
+
+        ptr = line;
+        for (i = 0; i < len; i++, ptr += itemStride)
+        {
+            unsigned int t = step == 1 ? qmProgress(i, n, w, h, direction) : qmProgress(n, i, w, h, direction);
+            // A box of radius r / sqrt(2) spreads about as far as a stack blur of radius r
+            unsigned int r = (maxRadius * t * 181) / (255 * 256);
+            unsigned int lo = i > r ? i - r : 0;
+            unsigned int hi = i + r < len ? i + r + 1 : len;
+            unsigned int count = hi - lo;
+
+            for (c = 0; c < 3; c++)
+            {
+                unsigned int* s = &sum[c * (len + 1)];
+                ptr[c] = (unsigned char)((s[hi] - s[lo] + count / 2) / count);
+            }
+
+            if (finish)
+            {
+                // The pixel faded by the strength, then the overlay at strength times its alpha over it
+                unsigned int a = oa * t / 255;
+                for (c = 0; c < 3; c++)
+                {
+                    ptr[c] = (unsigned char)((oc[c] * a * 255 + ptr[c] * t * (255 - a) + 32512) / 65025);
+                }
+                ptr[3] = (unsigned char)(a + (t * (255 - a) + 127) / 255);
+            }
+        }
+    }
+    free(sum);
+}
+
+/**
+ * Blur whose box radius follows a mask, evaluated from a summed-area table of R, G and B.
+ * Any box is four lookups per channel, so the cost per pixel does not depend on the radius.
+ * The table holds (w + 1) * (h + 1) entries per channel with a zero first row and column
+ * @param sat Summed-area table shared by all threads of the blur
+ * @param mask ALPHA_8 pixels, 255 = maxRadius, 0 = sharp, sampled at the nearest pixel
+ * @param step 1 = row sums over rows, 2 = column sums over columns, 3 = evaluate rows
+ */
+void qmblurMasked(unsigned char* src,
+                  unsigned int w,
+                  unsigned int h,
+                  unsigned int* sat,
+                  const unsigned char* mask,
+                  unsigned int maskWidth,
+                  unsigned int maskHeight,
+                  unsigned int maskStride,
+                  unsigned int maxRadius,
+                  int cores,
+                  int core,
+                  int step)
+{
+    unsigned int x, y, c;
+    unsigned int sw = w + 1;
+    size_t plane = (size_t)sw * (h + 1);
+
+    if (w == 0 || h == 0) return;
+
+    if (step == 2)
+    {
+        // Columns are split between threads, each walks down all rows so reads stay sequential
+        unsigned int minX = 1 + core * w / cores;
+        unsigned int maxX = 1 + (core + 1) * w / cores;
+        for (c = 0; c < 3; c++)
+        {
+            unsigned int* s = sat + c * plane;
+            for (y = 2; y <= h; y++)
+            {
+                unsigned int* row = s + (size_t)y * sw;
+                unsigned int* above = row - sw;
+                for (x = minX; x < maxX; x++) row[x] += above[x];
+            }
+        }
+        return;
+    }
+
+    unsigned int minY = core * h / cores;
+    unsigned int maxY = (core + 1) * h / cores;
+
+    for (y = minY; y < maxY; y++)
+    {
+        unsigned char* ptr = src + (size_t)y * w * 4;
+
+        if (step == 1)
+        {
+            for (c = 0; c < 3; c++)
+            {
+                unsigned int* row = sat + c * plane + (size_t)(y + 1) * sw;
+                unsigned int run = 0;
+                row[0] = 0;
+                for (x = 0; x < w; x++)
+                {
+                    run += ptr[x * 4 + c];
+                    row[x + 1] = run;
+                }
+            }
+            // The first row and column stay zero
+            if (y == 0)
+            {
+                for (c = 0; c < 3; c++) memset(sat + c * plane, 0, sizeof(unsigned int) * sw);
+            }
+            continue;
+        }
+
+        const unsigned char* maskRow = mask + (size_t)(y * maskHeight / h) * maskStride;
+        for (x = 0; x < w; x++, ptr += 4)
+        {
+            // A box of radius r / sqrt(2) spreads about as far as a stack blur of radius r
+            unsigned int r = (maxRadius * maskRow[x * maskWidth / w] * 181) / (255 * 256);
+            if (r == 0) continue;
+            unsigned int x0 = x > r ? x - r : 0;
+            unsigned int y0 = y > r ? y - r : 0;
+            unsigned int x1 = x + r < w ? x + r + 1 : w;
+            unsigned int y1 = y + r < h ? y + r + 1 : h;
+            unsigned int count = (x1 - x0) * (y1 - y0);
+            for (c = 0; c < 3; c++)
+            {
+                const unsigned int* s = sat + c * plane;
+                unsigned int sum = s[(size_t)y1 * sw + x1] - s[(size_t)y0 * sw + x1]
+                                 - s[(size_t)y1 * sw + x0] + s[(size_t)y0 * sw + x0];
+                ptr[c] = (unsigned char)((sum + count / 2) / count);
+            }
+        }
+    }
+}
+
+/**
+ * Catmull-Rom weights of the four taps around a sample position
+ */
+static inline void qmCubicWeights(float t, float* wt)
+{
+    float t2 = t * t;
+    float t3 = t2 * t;
+    wt[0] = 0.5f * (-t3 + 2.0f * t2 - t);
+    wt[1] = 0.5f * (3.0f * t3 - 5.0f * t2 + 2.0f);
+    wt[2] = 0.5f * (-3.0f * t3 + 4.0f * t2 + t);
+    wt[3] = 0.5f * (t3 - t2);
+}
+
+/**
+ * Bicubic resize of premultiplied RGBA pixels, rows of the destination are split between threads.
+ * The overshoot of the cubic is clamped so colors never exceed alpha
+ */
+void qmUpsample(const unsigned char* src, unsigned int sw, unsigned int sh, unsigned int srcStride,
+                unsigned char* dst, unsigned int dw, unsigned int dh, unsigned int dstStride,
+                int cores, int core)
+{
+    unsigned int x, y;
+    int i, j, c;
+
+    if (sw == 0 || sh == 0 || dw == 0 || dh == 0) return;
+
+    // Horizontal taps are the same for every row
+    int* tapX = (int*)malloc(sizeof(int) * dw);
+    float* weightX = (float*)malloc(sizeof(float) * dw * 4);
+    if (!tapX || !weightX) {
+        free(tapX);
+        free(weightX);
+        return;
+    }
+    float scaleX = (float)sw / dw;
+    float scaleY = (float)sh / dh;
+    for (x = 0; x < dw; x++) {
+        float fx = (x + 0.5f) * scaleX - 0.5f;
+        int ix = (int)floorf(fx);
+        tapX[x] = ix - 1;
+        qmCubicWeights(fx - ix, &weightX[x * 4]);
+    }
+
+    unsigned int minY = core * dh / cores;
+    unsigned int maxY = (core + 1) * dh / cores;
+
+    for (y = minY; y < maxY; y++) {
+        float fy = (y + 0.5f) * scaleY - 0.5f;
+        int iy = (int)floorf(fy);
+        float wy[4];
+        const unsigned char* rows[4];
+        qmCubicWeights(fy - iy, wy);
+        for (j = 0; j < 4; j++) {
+            int sy = iy - 1 + j;
+            if (sy < 0) sy = 0;
+            if (sy > (int)sh - 1) sy = sh - 1;
+            rows[j] = src + (size_t)sy * srcStride;
+        }
+
+        unsigned char* out = dst + (size_t)y * dstStride;
+        for (x = 0; x < dw; x++, out += 4) {
+            const float* wx = &weightX[x * 4];
+            float acc[4] = { 0.0f, 0.0f, 0.0f, 0.0f };
+            for (i = 0; i < 4; i++) {
+                int sx = tapX[x] + i;
+                if (sx < 0) sx = 0;
+                if (sx > (int)sw - 1) sx = sw - 1;
+                for (j = 0; j < 4; j++) {
+                    const unsigned char* p = rows[j] + sx * 4;
+                    float wgt = wx[i] * wy[j];
+                    for (c = 0; c < 4; c++) acc[c] += p[c] * wgt;
+                }
+            }
+            int a = (int)(acc[3] + 0.5f);
+            a = clamp(a, 0, 255);
+            for (c = 0; c < 3; c++) {
+                int v = (int)(acc[c] + 0.5f);
+                out[c] = (unsigned char)clamp(v, 0, a);
+            }
+            out[3] = (unsigned char)a;
+        }
+    }
+
+    free(tapX);
+    free(weightX);
+}
+
 JNIEXPORT void JNICALL Java_com_qmdeve_blurview_BlurNative_blur(JNIEnv* env, jclass clzz, jobject bitmapOut, jint radius, jint threadCount, jint threadIndex, jint round) {
     AndroidBitmapInfo   infoOut;
     void*               pixelsOut;
@@ -348,6 +838,432 @@ JNIEXPORT void JNICALL Java_com_qmdeve_blurview_BlurNative_blur(JNIEnv* env, jcl
     int h = infoOut.height;
     int w = infoOut.width;
 
-    qmblurJob((unsigned char*)pixelsOut, w, h, radius, threadCount, threadIndex, round);
+    qmblurJob((unsigned char*)pixelsOut, w, h, radius, threadCount, threadIndex, round, 0.0f, NULL);
+    AndroidBitmap_unlockPixels(env, bitmapOut);
+}
+JNIEXPORT void JNICALL Java_com_qmdeve_blurview_BlurNative_blurRounded(JNIEnv* env, jclass clzz, jobject bitmapOut, jint radius, jint threadCount, jint threadIndex, jint round, jfloat cornerRadius) {
+    AndroidBitmapInfo   infoOut;
+    void*               pixelsOut;
+
+    int ret;
+
+    if ((ret = AndroidBitmap_getInfo(env, bitmapOut, &infoOut)) != 0) {
+        LOGE("AndroidBitmap_getInfo() failed ! error=%d", ret);
+        return;
+    }
+
+    if (infoOut.format != ANDROID_BITMAP_FORMAT_RGBA_8888) {
+        LOGE("Bitmap format is not RGBA_8888!");
+        LOGE("==> %d", infoOut.format);
+        return;
+    }
+
+    if ((ret = AndroidBitmap_lockPixels(env, bitmapOut, &pixelsOut)) != 0) {
+        LOGE("AndroidBitmap_lockPixels() failed ! error=%d", ret);
+        return;
+    }
+
+    int h = infoOut.height;
+    int w = infoOut.width;
+
+    // The corner mask is applied while the vertical pass writes its pixels
+    float corner = cornerRadius;
+    if (corner > w / 2.0f) corner = w / 2.0f;
+    if (corner > h / 2.0f) corner = h / 2.0f;
+
+    qmblurJob((unsigned char*)pixelsOut, w, h, radius, threadCount, threadIndex, round, round == 2 ? corner : 0.0f, NULL);
     AndroidBitmap_unlockPixels(env, bitmapOut);
-}
\ No newline at end of file
+}
+
+JNIEXPORT void JNICALL Java_com_qmdeve_blurview_BlurNative_blurEffects(JNIEnv* env, jclass clzz, jobject bitmapOut, jint radius, jint threadCount, jint threadIndex, jint round, jfloat cornerRadius, jint tintColor, jfloat saturation, jfloat noise) {
+    AndroidBitmapInfo   infoOut;
+    void*               pixelsOut;
+
+    int ret;
+
+    if ((ret = AndroidBitmap_getInfo(env, bitmapOut, &infoOut)) != 0) {
+        LOGE("AndroidBitmap_getInfo() failed ! error=%d", ret);
+        return;
+    }
+
+    if (infoOut.format != ANDROID_BITMAP_FORMAT_RGBA_8888) {
+        LOGE("Bitmap format is not RGBA_8888!");
+        LOGE("==> %d", infoOut.format);
+        return;
+    }
+
+    if ((ret = AndroidBitmap_lockPixels(env, bitmapOut, &pixelsOut)) != 0) {
+        LOGE("AndroidBitmap_lockPixels() failed ! error=%d", ret);
+        return;
+    }
+
+    int h = infoOut.height;
+    int w = infoOut.width;
+
+    float corner = cornerRadius;
+    if (corner > w / 2.0f) corner = w / 2.0f;
+    if (corner > h / 2.0f) corner = h / 2.0f;
+
+    QmEffects fx;
+    fx.tint = (unsigned int)tintColor;
+    fx.saturation = saturation > 0.0f ? (unsigned int)(saturation * 256.0f + 0.5f) : 0;
+    fx.noise = noise > 0.0f ? (unsigned int)((noise > 1.0f ? 1.0f : noise) * 255.0f + 0.5f) : 0;
+
+    // Effects and the corner mask are applied while the vertical pass writes its pixels
+    qmblurJob((unsigned char*)pixelsOut, w, h, radius, threadCount, threadIndex, round,
+              round == 2 ? corner : 0.0f, round == 2 ? &fx : NULL);
+    AndroidBitmap_unlockPixels(env, bitmapOut);
+}
+
+JNIEXPORT void JNICALL Java_com_qmdeve_blurview_BlurNative_blurBitmap(JNIEnv* env, jclass clzz, jobject bitmapOut, jint radius, jint rounds) {
+    AndroidBitmapInfo   infoOut;
+    void*               pixelsOut;
+
+    int ret;
+
+    if ((ret = AndroidBitmap_getInfo(env, bitmapOut, &infoOut)) != 0) {
+        LOGE("AndroidBitmap_getInfo() failed ! error=%d", ret);
+        return;
+    }
+
+    if (infoOut.format != ANDROID_BITMAP_FORMAT_RGBA_8888) {
+        LOGE("Bitmap format is not RGBA_8888!");
+        LOGE("==> %d", infoOut.format);
+        return;
+    }
+
+    if ((ret = AndroidBitmap_lockPixels(env, bitmapOut, &pixelsOut)) != 0) {
+        LOGE("AndroidBitmap_lockPixels() failed ! error=%d", ret);
+        return;
+    }
+
+    int h = infoOut.height;
+    int w = infoOut.width;
+
+    // Every pass of every round on the calling thread, one JNI transition and one pixel lock
+    for (int i = 0; i < rounds; i++) {
+        qmblurJob((unsigned char*)pixelsOut, w, h, radius, 1, 0, 1, 0.0f, NULL);
+        qmblurJob((unsigned char*)pixelsOut, w, h, radius, 1, 0, 2, 0.0f, NULL);
+    }
+    AndroidBitmap_unlockPixels(env, bitmapOut);
+}
+
+JNIEXPORT void JNICALL Java_com_qmdeve_blurview_BlurNative_blurProgressive(JNIEnv* env, jclass clzz, jobject bitmapOut, jint maxRadius, jint direction, jint overlayColor, jint threadCount, jint threadIndex, jint round, jboolean finish) {
+    AndroidBitmapInfo   infoOut;
+    void*               pixelsOut;
+
+    int ret;
+
+    if ((ret = AndroidBitmap_getInfo(env, bitmapOut, &infoOut)) != 0) {
+        LOGE("AndroidBitmap_getInfo() failed ! error=%d", ret);
+        return;
+    }
+
+    if (infoOut.format != ANDROID_BITMAP_FORMAT_RGBA_8888) {
+        LOGE("Bitmap format is not RGBA_8888!");
+        LOGE("==> %d", infoOut.format);
+        return;
+    }
+
+    if ((ret = AndroidBitmap_lockPixels(env, bitmapOut, &pixelsOut)) != 0) {
+        LOGE("AndroidBitmap_lockPixels() failed ! error=%d", ret);
+        return;
+    }
+
+    int h = infoOut.height;
+    int w = infoOut.width;
+
+    qmblurProgressive((unsigned char*)pixelsOut, w, h, maxRadius, direction, (unsigned int)overlayColor, threadCount, threadIndex, round, finish);
+    AndroidBitmap_unlockPixels(env, bitmapOut);
+}
+
+JNIEXPORT void JNICALL Java_com_qmdeve_blurview_BlurNative_upsample(JNIEnv* env, jclass clzz, jobject bitmapIn, jobject bitmapOut, jint threadCount, jint threadIndex) {
+    AndroidBitmapInfo   infoIn;
+    AndroidBitmapInfo   infoOut;
+    void*               pixelsIn;
+    void*               pixelsOut;
+
+    int ret;
+
+    if ((ret = AndroidBitmap_getInfo(env, bitmapIn, &infoIn)) != 0
+            || (ret = AndroidBitmap_getInfo(env, bitmapOut, &infoOut)) != 0) {
+        LOGE("AndroidBitmap_getInfo() failed ! error=%d", ret);
+        return;
+    }
+
+    if (infoIn.format != ANDROID_BITMAP_FORMAT_RGBA_8888 || infoOut.format != ANDROID_BITMAP_FORMAT_RGBA_8888) {
+        LOGE("Bitmap format is not RGBA_8888!");
+        LOGE("==> %d, %d", infoIn.format, infoOut.format);
+        return;
+    }
+
+    if ((ret = AndroidBitmap_lockPixels(env, bitmapIn, &pixelsIn)) != 0) {
+        LOGE("AndroidBitmap_lockPixels() failed ! error=%d", ret);
+        return;
+    }
+
+    if ((ret = AndroidBitmap_lockPixels(env, bitmapOut, &pixelsOut)) != 0) {
+        LOGE("AndroidBitmap_lockPixels() failed ! error=%d", ret);
+        AndroidBitmap_unlockPixels(env, bitmapIn);
+        return;
+    }
+
+    qmUpsample((const unsigned char*)pixelsIn, infoIn.width, infoIn.height, infoIn.stride,
+               (unsigned char*)pixelsOut, infoOut.width, infoOut.height, infoOut.stride,
+               threadCount, threadIndex);
+
+    AndroidBitmap_unlockPixels(env, bitmapOut);
+    AndroidBitmap_unlockPixels(env, bitmapIn);
+}
+
+/**
+ * Bytes per pixel of a bitmap format
+ * @return 0 for formats that cannot be hashed
+ */
+static unsigned int qmBytesPerPixel(int format)
+{
+    switch (format) {
+        case ANDROID_BITMAP_FORMAT_RGBA_8888: return 4;
+        case ANDROID_BITMAP_FORMAT_RGB_565: return 2;
+        case ANDROID_BITMAP_FORMAT_RGBA_4444: return 2;
+        case ANDROID_BITMAP_FORMAT_A_8: return 1;
+        case ANDROID_BITMAP_FORMAT_RGBA_F16: return 8;
+        case ANDROID_BITMAP_FORMAT_RGBA_1010102: return 4;
+        default: return 0;
+    }
+}
+
+JNIEXPORT jboolean JNICALL Java_com_qmdeve_blurview_BlurNative_fingerprint(JNIEnv* env, jclass clzz, jobject bitmapIn, jlongArray hashOut) {
+    AndroidBitmapInfo   infoIn;
+    void*               pixelsIn;
+
+    int ret;
+
+    if ((ret = AndroidBitmap_getInfo(env, bitmapIn, &infoIn)) != 0) {
+        LOGE("AndroidBitmap_getInfo() failed ! error=%d", ret);
+        return JNI_FALSE;
+    }
+
+    unsigned int bpp = qmBytesPerPixel(infoIn.format);
+    if (bpp == 0) {
+        LOGE("Bitmap format %d cannot be fingerprinted", infoIn.format);
+        return JNI_FALSE;
+    }
+
+    // Hardware bitmaps fail here, their pixels are not addressable
+    if ((ret = AndroidBitmap_lockPixels(env, bitmapIn, &pixelsIn)) != 0) {
+        LOGE("AndroidBitmap_lockPixels() failed ! error=%d", ret);
+        return JNI_FALSE;
+    }
+
+    // FNV-1a over whole pixels, row by row so padding past the visible width is ignored
+    unsigned long long hash = 0xcbf29ce484222325ULL;
+    unsigned int rowBytes = infoIn.width * bpp;
+    for (unsigned int y = 0; y < infoIn.height; y++) {
+        const unsigned char* row = (const unsigned char*)pixelsIn + y * infoIn.stride;
+        unsigned int words = rowBytes / 4;
+        unsigned int x;
+        for (x = 0; x < words; x++) {
+            unsigned int word;
+            memcpy(&word, row + x * 4, 4);
+            hash ^= word;
+            hash *= 0x100000001b3ULL;
+        }
+        for (x = words * 4; x < rowBytes; x++) {
+            hash ^= row[x];
+            hash *= 0x100000001b3ULL;
+        }
+    }
+    hash ^= ((unsigned long long)infoIn.width << 32) | infoIn.height;
+    hash *= 0x100000001b3ULL;
+    hash ^= (unsigned long long)infoIn.format;
+    hash *= 0x100000001b3ULL;
+
+    AndroidBitmap_unlockPixels(env, bitmapIn);
+
+    jlong result = (jlong)hash;
+    (*env)->SetLongArrayRegion(env, hashOut, 0, 1, &result);
+    return JNI_TRUE;
+}
+
+static jclass qmBufferClass = NULL;
+
+/**
+ * Resolve direct buffers to their address and pin primitive arrays with GetPrimitiveArrayCritical.
+ * Direct buffers are resolved first, no JNI call may happen while an array is pinned
+ * @return 0 on success, the caller must still release whatever was acquired
+ */
+static int qmAcquireBuffers(JNIEnv* env, jobject* buffers, unsigned char** data, jboolean* isArray, int count)
+{
+    int i;
+    for (i = 0; i < count; i++) {
+        data[i] = NULL;
+        isArray[i] = JNI_FALSE;
+    }
+
+    if (!qmBufferClass) {
+        jclass local = (*env)->FindClass(env, "java/nio/Buffer");
+        if (!local) return -1;
+        qmBufferClass = (jclass)(*env)->NewGlobalRef(env, local);
+        (*env)->DeleteLocalRef(env, local);
+    }
+
+    for (i = 0; i < count; i++) {
+        // Older runtimes do not type check GetDirectBufferAddress, so arrays must never reach it
+        isArray[i] = !(*env)->IsInstanceOf(env, buffers[i], qmBufferClass);
+        if (!isArray[i]) {
+            data[i] = (unsigned char*)(*env)->GetDirectBufferAddress(env, buffers[i]);
+            if (!data[i]) return -1;
+        }
+    }
+    for (i = 0; i < count; i++) {
+        if (isArray[i]) {
+            data[i] = (unsigned char*)(*env)->GetPrimitiveArrayCritical(env, (jarray)buffers[i], NULL);
+            if (!data[i]) return -1;
+        }
+    }
+    return 0;
+}
+
+static void qmReleaseBuffers(JNIEnv* env, jobject* buffers, unsigned char** data, jboolean* isArray, int count)
+{
+    for (int i = count - 1; i >= 0; i--) {
+        if (isArray[i] && data[i]) (*env)->ReleasePrimitiveArrayCritical(env, (jarray)buffers[i], data[i], 0);
+    }
+}
+
+JNIEXPORT void JNICALL Java_com_qmdeve_blurview_BlurNative_blurBuffer(JNIEnv* env, jclass clzz, jobject buffer, jint offset, jint width, jint height, jint rowStride, jint pixelStride, jint channels, jint radius, jint threadCount, jint threadIndex, jint round) {
+    jboolean isArray;
+    unsigned char* data;
+
+    if (qmAcquireBuffers(env, &buffer, &data, &isArray, 1) == 0) {
+        qmblurChannels(data + offset, width, height, rowStride, pixelStride, channels, radius, threadCount, threadIndex, round);
+    } else {
+        LOGE("Pixels are neither a direct buffer nor an array!");
+    }
+    qmReleaseBuffers(env, &buffer, &data, &isArray, 1);
+}
+
+JNIEXPORT void JNICALL Java_com_qmdeve_blurview_BlurNative_blurMasked(JNIEnv* env, jclass clzz, jobject bitmapOut, jobject bitmapMask, jintArray table, jint maxRadius, jint threadCount, jint threadIndex, jint round) {
+    AndroidBitmapInfo   infoOut;
+    AndroidBitmapInfo   infoMask;
+    void*               pixelsOut;
+    void*               pixelsMask;
+
+    int ret;
+
+    if ((ret = AndroidBitmap_getInfo(env, bitmapOut, &infoOut)) != 0
+            || (ret = AndroidBitmap_getInfo(env, bitmapMask, &infoMask)) != 0) {
+        LOGE("AndroidBitmap_getInfo() failed ! error=%d", ret);
+        return;
+    }
+
+    if (infoOut.format != ANDROID_BITMAP_FORMAT_RGBA_8888) {
+        LOGE("Bitmap format is not RGBA_8888!");
+        LOGE("==> %d", infoOut.format);
+        return;
+    }
+
+    if (infoMask.format != ANDROID_BITMAP_FORMAT_A_8) {
+        LOGE("Mask format is not A_8!");
+        LOGE("==> %d", infoMask.format);
+        return;
+    }
+
+    if ((ret = AndroidBitmap_lockPixels(env, bitmapOut, &pixelsOut)) != 0) {
+        LOGE("AndroidBitmap_lockPixels() failed ! error=%d", ret);
+        return;
+    }
+
+    if ((ret = AndroidBitmap_lockPixels(env, bitmapMask, &pixelsMask)) != 0) {
+        LOGE("AndroidBitmap_lockPixels() failed ! error=%d", ret);
+        AndroidBitmap_unlockPixels(env, bitmapOut);
+        return;
+    }
+
+    int h = infoOut.height;
+    int w = infoOut.width;
+
+    // Pixels are locked before the table is pinned, no JNI call may happen while it is
+    jobject buffer = table;
+    jboolean isArray;
+    unsigned char* sat;
+    if (qmAcquireBuffers(env, &buffer, &sat, &isArray, 1) == 0) {
+        qmblurMasked((unsigned char*)pixelsOut, w, h, (unsigned int*)sat, (const unsigned char*)pixelsMask,
+                     infoMask.width, infoMask.height, infoMask.stride, maxRadius, threadCount, threadIndex, round);
+    }
+    qmReleaseBuffers(env, &buffer, &sat, &isArray, 1);
+
+    AndroidBitmap_unlockPixels(env, bitmapMask);
+    AndroidBitmap_unlockPixels(env, bitmapOut);
+}
+
+JNIEXPORT void JNICALL Java_com_qmdeve_blurview_YuvBlur_planesToBitmap(JNIEnv* env, jclass clzz,
+                                                                   jobject yBuffer, jint yOffset, jint yRowStride,
+                                                                   jobject uBuffer, jint uOffset,
+                                                                   jobject vBuffer, jint vOffset,
+                                                                   jint uvRowStride, jint uvPixelStride,
+                                                                   jint width, jint height, jobject bitmapOut) {
+    AndroidBitmapInfo   infoOut;
+    void*               pixelsOut;
+
+    int ret;
+
+    if ((ret = AndroidBitmap_getInfo(env, bitmapOut, &infoOut)) != 0) {
+        LOGE("AndroidBitmap_getInfo() failed ! error=%d", ret);
+        return;
+    }
+
+    if (infoOut.format != ANDROID_BITMAP_FORMAT_RGBA_8888) {
+        LOGE("Bitmap format is not RGBA_8888!");
+        LOGE("==> %d", infoOut.format);
+        return;
+    }
+
+    if ((ret = AndroidBitmap_lockPixels(env, bitmapOut, &pixelsOut)) != 0) {
+        LOGE("AndroidBitmap_lockPixels() failed ! error=%d", ret);
+        return;
+    }
+
+    // Planes may be pinned arrays, so the bitmap is locked first and unlocked last
+    jobject buffers[3] = { yBuffer, uBuffer, vBuffer };
+    unsigned char* data[3];
+    jboolean isArray[3];
+
+    if (qmAcquireBuffers(env, buffers, data, isArray, 3) == 0) {
+        unsigned char* yData = data[0];
+        unsigned char* uData = data[1];
+        unsigned char* vData = data[2];
+        // Nearest sample of the frame for every output pixel, full range BT.601
+        unsigned int ow = infoOut.width;
+        unsigned int oh = infoOut.height;
+        for (unsigned int oy = 0; oy < oh; oy++) {
+            unsigned int sy = (unsigned int)(((unsigned long long)oy * height + height / 2) / oh);
+            if (sy >= (unsigned int)height) sy = height - 1;
+            unsigned char* dst = (unsigned char*)pixelsOut + oy * infoOut.stride;
+            const unsigned char* yRow = yData + yOffset + sy * yRowStride;
+            const unsigned char* uRow = uData + uOffset + (sy >> 1) * uvRowStride;
+            const unsigned char* vRow = vData + vOffset + (sy >> 1) * uvRowStride;
+            for (unsigned int ox = 0; ox < ow; ox++) {
+                unsigned int sx = (unsigned int)(((unsigned long long)ox * width + width / 2) / ow);
+                if (sx >= (unsigned int)width) sx = width - 1;
+                int yv = yRow[sx];
+                int uv = uRow[(sx >> 1) * uvPixelStride] - 128;
+                int vv = vRow[(sx >> 1) * uvPixelStride] - 128;
+                int r = yv + ((91881 * vv) >> 16);
+                int g = yv - ((22554 * uv + 46802 * vv) >> 16);
+                int b = yv + ((116130 * uv) >> 16);
+                dst[0] = (unsigned char)clamp(r, 0, 255);
+                dst[1] = (unsigned char)clamp(g, 0, 255);
+                dst[2] = (unsigned char)clamp(b, 0, 255);
+                dst[3] = 255;
+                dst += 4;
+            }
+        }
+    } else {
+        LOGE("Plane is neither a direct buffer nor an array!");
+    }
+
+    qmReleaseBuffers(env, buffers, data, isArray, 3);
+    AndroidBitmap_unlockPixels(env, bitmapOut);
+}
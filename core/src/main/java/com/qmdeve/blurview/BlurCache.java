@@ -0,0 +1,301 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025-2026 Donny Yale
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ===========================================
+ * Project: QmBlurView
+ * Created Date: 2025-10-21
+ * Author: Donny Yale
+ * GitHub: https://github.com/QmDeve/QmBlurView
+ * Website: https://blurview.qmdeve.com
+ * ===========================================
+ */
+
+package com.qmdeve.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import androidx.annotation.RestrictTo;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opt-in, byte-bounded LRU cache of blurred results shared by the blur views
+ * and the image loader transformations.
+ * Entries are keyed by a fingerprint of the source pixels plus the blur parameters,
+ * so a source that did not change is never blurred twice
+ */
+public final class BlurCache {
+
+    private static final LinkedHashMap<Key, Bitmap> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+    private static long sMaxBytes;
+    private static long sBytes;
+
+    /**
+     * Identity of one blurred result
+     */
+    public static final class Key {
+        private final long fingerprint;
+        private final int width;
+        private final int height;
+        private final float radius;
+        private final int rounds;
+        private final float downsample;
+        private final float cornerRadius;
+
+        Key(long fingerprint, int width, int height, float radius, int rounds, float downsample, float cornerRadius) {
+            this.fingerprint = fingerprint;
+            this.width = width;
+            this.height = height;
+            this.radius = radius;
+            this.rounds = rounds;
+            this.downsample = downsample;
+            this.cornerRadius = cornerRadius;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return fingerprint == other.fingerprint
+                    && width == other.width
+                    && height == other.height
+                    && Float.compare(radius, other.radius) == 0
+                    && rounds == other.rounds
+                    && Float.compare(downsample, other.downsample) == 0
+                    && Float.compare(cornerRadius, other.cornerRadius) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (int) (fingerprint ^ (fingerprint >>> 32));
+            result = 31 * result + width;
+            result = 31 * result + height;
+            result = 31 * result + Float.floatToIntBits(radius);
+            result = 31 * result + rounds;
+            result = 31 * result + Float.floatToIntBits(downsample);
+            result = 31 * result + Float.floatToIntBits(cornerRadius);
+            return result;
+        }
+    }
+
+    /**
+     * Decides when a view may use the cache for its per-frame results. A live backdrop
+     * changes every frame, hashing it would only cost time and copying each result would
+     * evict useful entries. A sparse sample of the capture has to stay the same for a few
+     * frames before the full key is built, and a result is stored once that key was seen
+     * for a few consecutive frames
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public static final class FrameGate {
+        private static final int STABLE_FRAMES = 3;
+
+        // Pixels per side of the grid sampled by isQuiet
+        private static final int SAMPLE_GRID = 16;
+
+        private Key lastKey;
+        private int stableFrames;
+        private long lastSample;
+        private int quietFrames;
+
+        /**
+         * Cheap check before {@link BlurCache#key}, samples a grid of pixels of the capture
+         * @param source Software bitmap about to be blurred
+         * @return true once the sample has been the same for a few frames
+         */
+        public synchronized boolean isQuiet(Bitmap source) {
+            if (!isEnabled() || source == null || source.isRecycled()) return false;
+            long sample = sample(source);
+            if (sample != lastSample) {
+                lastSample = sample;
+                quietFrames = 0;
+                return false;
+            }
+            return ++quietFrames >= STABLE_FRAMES;
+        }
+
+        private static long sample(Bitmap source) {
+            int width = source.getWidth();
+            int height = source.getHeight();
+            long hash = 0xcbf29ce484222325L ^ ((long) width << 32 | height);
+            for (int j = 0; j < SAMPLE_GRID; j++) {
+                int y = (int) ((2L * j + 1) * height / (2 * SAMPLE_GRID));
+                for (int i = 0; i < SAMPLE_GRID; i++) {
+                    int x = (int) ((2L * i + 1) * width / (2 * SAMPLE_GRID));
+                    hash = (hash ^ source.getPixel(x, y)) * 0x100000001b3L;
+                }
+            }
+            return hash;
+        }
+
+        /**
+         * Record the key of a frame
+         * @param key Key of the frame, null resets the gate
+         * @return true once the key has been stable long enough to be stored
+         */
+        public synchronized boolean onFrame(Key key) {
+            if (key == null || !key.equals(lastKey)) {
+                lastKey = key;
+                stableFrames = 0;
+                return false;
+            }
+            return ++stableFrames >= STABLE_FRAMES;
+        }
+    }
+
+    private BlurCache() {
+    }
+
+    /**
+     * Set the size of the cache, the cache is disabled until this is called
+     * @param bytes Size in bytes, 0 disables the cache and drops all entries
+     */
+    public static synchronized void setMaxBytes(long bytes) {
+        sMaxBytes = Math.max(0, bytes);
+        trimToSize();
+    }
+
+    /**
+     * Get the size of the cache
+     * @return Size in bytes, 0 when disabled
+     */
+    public static synchronized long getMaxBytes() {
+        return sMaxBytes;
+    }
+
+    /**
+     * Get the memory held by cached results
+     * @return Size in bytes
+     */
+    public static synchronized long getUsedBytes() {
+        return sBytes;
+    }
+
+    /**
+     * Whether the cache is enabled
+     * @return true if a size was set
+     */
+    public static synchronized boolean isEnabled() {
+        return sMaxBytes > 0;
+    }
+
+    /**
+     * Drop all cached results
+     */
+    public static synchronized void clear() {
+        CACHE.clear();
+        sBytes = 0;
+    }
+
+    /**
+     * Build the key of a blur, hashing the pixels of the source
+     * @param source Bitmap about to be blurred
+     * @param radius Blur radius
+     * @param rounds Blur rounds
+     * @param downsample Downsample factor the source was captured or scaled with
+     * @return Key, or null when the cache is disabled or the source pixels cannot be read
+     */
+    public static Key key(Bitmap source, float radius, int rounds, float downsample) {
+        return key(source, radius, rounds, downsample, 0f);
+    }
+
+    /**
+     * Build the key of a blur clipped to rounded corners
+     * @param source Bitmap about to be blurred
+     * @param radius Blur radius
+     * @param rounds Blur rounds
+     * @param downsample Downsample factor the source was captured or scaled with
+     * @param cornerRadius Corner radius applied with the blur
+     * @return Key, or null when the cache is disabled or the source pixels cannot be read
+     */
+    public static Key key(Bitmap source, float radius, int rounds, float downsample, float cornerRadius) {
+        if (!isEnabled() || source == null || source.isRecycled()) return null;
+        BlurRuntime.loadNativeLibrary();
+        long[] fingerprint = new long[1];
+        // Sources that cannot be hashed are never cached, they would all share one key
+        if (!BlurNative.fingerprint(source, fingerprint)) return null;
+        return new Key(fingerprint[0], source.getWidth(), source.getHeight(),
+                radius, rounds, downsample, cornerRadius);
+    }
+
+    /**
+     * Get a cached result, the returned bitmap is shared and must not be modified
+     * @param key Key from {@link #key}, may be null
+     * @return Blurred bitmap, or null on a miss
+     */
+    public static synchronized Bitmap get(Key key) {
+        return key != null ? CACHE.get(key) : null;
+    }
+
+    /**
+     * Copy a cached result into a bitmap of the same size
+     * @param key Key from {@link #key}, may be null
+     * @param output Destination bitmap
+     * @return true on a hit, output then holds the blurred result
+     */
+    public static boolean getInto(Key key, Bitmap output) {
+        Bitmap cached = get(key);
+        if (cached == null || output == null || output.isRecycled() || !output.isMutable()
+                || cached.getWidth() != output.getWidth() || cached.getHeight() != output.getHeight()) {
+            return false;
+        }
+        output.eraseColor(0);
+        new Canvas(output).drawBitmap(cached, 0, 0, null);
+        return true;
+    }
+
+    /**
+     * Store a copy of a blurred result
+     * @param key Key from {@link #key} for the source of the blur, may be null
+     * @param blurred Blurred bitmap
+     */
+    public static void put(Key key, Bitmap blurred) {
+        if (key == null || blurred == null || blurred.isRecycled()) return;
+
+        long bytes = blurred.getAllocationByteCount();
+        synchronized (BlurCache.class) {
+            if (bytes > sMaxBytes || CACHE.containsKey(key)) return;
+        }
+
+        Bitmap copy = blurred.copy(Bitmap.Config.ARGB_8888, false);
+        if (copy == null) return;
+
+        synchronized (BlurCache.class) {
+            Bitmap old = CACHE.put(key, copy);
+            if (old != null) sBytes -= old.getAllocationByteCount();
+            sBytes += copy.getAllocationByteCount();
+            trimToSize();
+        }
+    }
+
+    private static void trimToSize() {
+        // Evicted results are left to the GC, a caller may still be drawing them
+        Iterator<Map.Entry<Key, Bitmap>> iterator = CACHE.entrySet().iterator();
+        while (sBytes > sMaxBytes && iterator.hasNext()) {
+            sBytes -= iterator.next().getValue().getAllocationByteCount();
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025-2026 Donny Yale
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ===========================================
+ * Project: QmBlurView
+ * Created Date: 2025-10-21
+ * Author: Donny Yale
+ * GitHub: https://github.com/QmDeve/QmBlurView
+ * Website: https://blurview.qmdeve.com
+ * ===========================================
+ */
+
+package com.qmdeve.blurview;
+
+/**
+ * Post effects written by the final native blur pass into the blurred pixels,
+ * instead of being drawn over the scaled bitmap at display resolution
+ */
+public final class BlurEffects {
+
+    public static final BlurEffects NONE = new BlurEffects(0, 1f, 0f);
+
+    public final int tintColor;
+    public final float saturation;
+    public final float noise;
+
+    /**
+     * @param tintColor Color composited over the blur, 0 for none
+     * @param saturation Saturation multiplier, 1 = unchanged, above 1 for a vibrancy look
+     * @param noise Grain strength (0-1), 0 for none
+     */
+    public BlurEffects(int tintColor, float saturation, float noise) {
+        this.tintColor = tintColor;
+        this.saturation = Math.max(0f, saturation);
+        this.noise = Math.max(0f, Math.min(1f, noise));
+    }
+
+    /**
+     * Whether applying these effects would leave the pixels unchanged
+     * @return true if there is nothing to apply
+     */
+    public boolean isEmpty() {
+        return (tintColor >>> 24) == 0 && saturation == 1f && noise == 0f;
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025-2026 Donny Yale
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ===========================================
+ * Project: QmBlurView
+ * Created Date: 2025-10-21
+ * Author: Donny Yale
+ * GitHub: https://github.com/QmDeve/QmBlurView
+ * Website: https://blurview.qmdeve.com
+ * ===========================================
+ */
+
+package com.qmdeve.blurview;
+
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide accounting of the pixel memory held by blur views.
+ * Every view reserves its working bitmaps here before allocating them,
+ * when a reservation does not fit into the budget the buffers of offscreen
+ * and least recently drawn views are trimmed first, and if that is still
+ * not enough the requesting view gets a larger downsample factor
+ */
+public final class BlurMemoryBudget {
+
+    // Default budget for all blur views together, 32MB
+    private static final long DEFAULT_BUDGET_BYTES = 32L * 1024 * 1024;
+
+    // Views captured within this window are never trimmed in favour of another view
+    private static final long RECENTLY_DRAWN_MS = 1000;
+
+    // Upper bound of the extra downsample scale handed out to a single view
+    private static final float MAX_EXTRA_DOWNSAMPLE = 8f;
+
+    private static final Map<Client, Entry> ENTRIES = new HashMap<>();
+    private static long sBudgetBytes = DEFAULT_BUDGET_BYTES;
+    private static long sUsedBytes;
+    private static long sPeakBytes;
+
+    /**
+     * A holder of blur buffers, implemented by the blur views
+     */
+    public interface Client {
+        /**
+         * @return Whether the owner is attached and currently shown
+         */
+        boolean isOnScreen();
+
+        /**
+         * Release the working bitmaps, they are recreated on the next capture
+         */
+        void onTrimBlurMemory();
+    }
+
+    private static final class Entry {
+        final Client client;
+        long bytes;
+        long lastDrawn;
+
+        Entry(Client client) {
+            this.client = client;
+        }
+    }
+
+    private BlurMemoryBudget() {
+    }
+
+    /**
+     * Set the memory budget shared by all blur views
+     * @param bytes Budget in bytes, 0 or less disables the limit
+     */
+    public static synchronized void setBudgetBytes(long bytes) {
+        sBudgetBytes = bytes > 0 ? bytes : Long.MAX_VALUE;
+    }
+
+    /**
+     * Get the memory budget shared by all blur views
+     * @return Budget in bytes, Long.MAX_VALUE if unlimited
+     */
+    public static synchronized long getBudgetBytes() {
+        return sBudgetBytes;
+    }
+
+    /**
+     * Get the pixel memory currently held by all blur views
+     * @return Used bytes
+     */
+    public static synchronized long getUsedBytes() {
+        return sUsedBytes;
+    }
+
+    /**
+     * Get the highest value getUsedBytes() has reached
+     * @return Peak bytes
+     */
+    public static synchronized long getPeakBytes() {
+        return sPeakBytes;
+    }
+
+    /**
+     * Reserve memory for the working bitmaps of a view.
+     * Must be called on the main thread, since other views may be trimmed
+     * @param client The view requesting memory
+     * @param bytes Bytes needed at the requested downsample factor
+     * @return Extra downsample scale (>= 1) the view must apply for its buffers to fit
+     */
+    public static synchronized float reserve(Client client, long bytes) {
+        release(client);
+
+        long available = sBudgetBytes - sUsedBytes;
+        if (bytes > available) {
+            trim(client, bytes - available);
+            available = sBudgetBytes - sUsedBytes;
+        }
+
+        if (bytes <= available) return 1f;
+
+        // Buffer size shrinks with the square of the downsample factor
+        float scale = (float) Math.sqrt((double) bytes / Math.max(1L, available));
+        return Math.min(MAX_EXTRA_DOWNSAMPLE, scale);
+    }
+
+    /**
+     * Check whether a view could hold buffers of the given size instead of
+     * its current ones without trimming any other view
+     * @param client The view asking
+     * @param bytes Bytes needed at the requested downsample factor
+     * @return true if they fit into the free part of the budget
+     */
+    public static synchronized boolean fits(Client client, long bytes) {
+        Entry entry = ENTRIES.get(client);
+        long held = entry != null ? entry.bytes : 0;
+        return bytes <= sBudgetBytes - sUsedBytes + held;
+    }
+
+    /**
+     * Record the bytes actually allocated after a reservation
+     * @param client The view owning the buffers
+     * @param bytes Allocated bytes
+     */
+    public static synchronized void commit(Client client, long bytes) {
+        Entry entry = ENTRIES.get(client);
+        if (entry == null) {
+            entry = new Entry(client);
+            ENTRIES.put(client, entry);
+        }
+        sUsedBytes += bytes - entry.bytes;
+        entry.bytes = bytes;
+        entry.lastDrawn = SystemClock.uptimeMillis();
+        sPeakBytes = Math.max(sPeakBytes, sUsedBytes);
+    }
+
+    /**
+     * Mark the buffers of a view as recently used
+     * @param client The view that captured a frame
+     */
+    public static synchronized void markDrawn(Client client) {
+        Entry entry = ENTRIES.get(client);
+        if (entry != null) entry.lastDrawn = SystemClock.uptimeMillis();
+    }
+
+    /**
+     * Forget the buffers of a view after they were recycled
+     * @param client The view releasing its buffers
+     */
+    public static synchronized void release(Client client) {
+        Entry entry = ENTRIES.remove(client);
+        if (entry != null) sUsedBytes -= entry.bytes;
+    }
+
+    /**
+     * Trim other views until the deficit is covered,
+     * offscreen views first, then the least recently drawn ones
+     */
+    private static void trim(Client requester, long deficit) {
+        List<Entry> candidates = new ArrayList<>(ENTRIES.values());
+        List<Boolean> onScreen = new ArrayList<>(candidates.size());
+        Collections.sort(candidates, (a, b) -> Long.compare(a.lastDrawn, b.lastDrawn));
+        for (Entry entry : candidates) onScreen.add(entry.client.isOnScreen());
+
+        long now = SystemClock.uptimeMillis();
+        for (int pass = 0; pass < 2 && deficit > 0; pass++) {
+            for (int i = 0; i < candidates.size() && deficit > 0; i++) {
+                Entry entry = candidates.get(i);
+                if (entry.client == requester || entry.bytes == 0) continue;
+
+                boolean visible = onScreen.get(i);
+                // First pass only takes offscreen views
+                if (pass == 0 && visible) continue;
+                if (pass == 1 && (!visible || now - entry.lastDrawn < RECENTLY_DRAWN_MS)) continue;
+
+                long before = sUsedBytes;
+                entry.client.onTrimBlurMemory();
+                // Clients normally release themselves, make sure the bytes are gone either way
+                release(entry.client);
+                deficit -= before - sUsedBytes;
+            }
+        }
+    }
+}
@@ -37,12 +37,17 @@ import android.content.pm.ApplicationInfo;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Native blur implementation,
- * Gaussian blur through JNI call cpp code
+ * Gaussian blur through JNI call cpp code.
+ * The native library and the worker pool are owned by {@link BlurRuntime}
+ * and loaded on the first blur
  */
 public class BlurNative implements Blur {
 
@@ -52,25 +57,19 @@ public class BlurNative implements Blur {
     // The minimum value of the blur radius
     private static final int MIN_RADIUS = 2;
 
-    // Thread pool configuration
-    private static final int THREAD_COUNT;
-    private static final ExecutorService EXECUTOR;
-
-    static {
-        int cpuCount = Runtime.getRuntime().availableProcessors();
-        THREAD_COUNT = Math.max(2, Math.min(5, cpuCount));
-        EXECUTOR = Executors.newFixedThreadPool(THREAD_COUNT, r -> {
-            Thread t = new Thread(r, "NativeBlurThread");
-            t.setPriority(Thread.MIN_PRIORITY);
-            t.setDaemon(true);
-            return t;
-        });
-        System.loadLibrary("QmBlur");
-    }
+    // Byte order of pixels in memory for the buffer entry points
+    public static final int CHANNELS_RGBA = 0;
+    public static final int CHANNELS_BGRA = 1;
+    public static final int CHANNELS_ARGB = 2;
+    public static final int CHANNELS_ABGR = 3;
 
-    private final AtomicBoolean isBlurring = new AtomicBoolean(false);
-    private float radius = MAX_RADIUS;
-    private int blurRounds = 2; // Default to 2 iterations (each = horizontal + vertical pass) for better performance
+    // Cancels the blurs started without a token of their own
+    private final CancellationToken instanceToken = new CancellationToken();
+    // Summed-area table of the last masked blur, reused while it is large enough
+    private final AtomicReference<int[]> summedAreaTable = new AtomicReference<>();
+    private volatile float radius = MAX_RADIUS;
+    private volatile BlurEffects effects = BlurEffects.NONE;
+    private volatile int blurRounds = 2; // Default to 2 iterations (each = horizontal + vertical pass) for better performance
 
     /**
      *
@@ -88,6 +87,201 @@ public class BlurNative implements Blur {
             int round
     );
 
+    /**
+     * Same as {@link #blur(Object, int, int, int, int)}, the vertical pass also
+     * clears everything outside a rounded rect spanning the bitmap, with anti-aliased edges
+     * @param bitmap Bitmap objects to be blurred
+     * @param radius Blur radius
+     * @param threadCount Total number of threads
+     * @param threadIndex Current thread index
+     * @param round Blur round
+     * @param cornerRadius Corner radius in pixels
+     */
+    private static native void blurRounded(
+            Object bitmap,
+            int radius,
+            int threadCount,
+            int threadIndex,
+            int round,
+            float cornerRadius
+    );
+
+    /**
+     * One pass of a blur whose radius grows along a direction.
+     * The final pass also fades alpha with the blur and blends in the overlay color
+     * @param bitmap Bitmap objects to be blurred
+     * @param maxRadius Blur radius at the fully blurred end
+     * @param direction One of the ProgressiveBlurView direction constants
+     * @param overlayColor Overlay color at the fully blurred end
+     * @param threadCount Total number of threads
+     * @param threadIndex Current thread index
+     * @param round Blur round
+     * @param finish Whether this is the final pass
+     */
+    private static native void blurProgressive(
+            Object bitmap,
+            int maxRadius,
+            int direction,
+            int overlayColor,
+            int threadCount,
+            int threadIndex,
+            int round,
+            boolean finish
+    );
+
+    /**
+     * One pass of a blur whose radius follows a mask
+     * @param bitmap Bitmap objects to be blurred
+     * @param mask ALPHA_8 mask, may be smaller than the bitmap
+     * @param table Summed-area table of 3 * (width + 1) * (height + 1) ints
+     * @param maxRadius Blur radius where the mask is opaque
+     * @param threadCount Total number of threads
+     * @param threadIndex Current thread index
+     * @param round 1 = row sums, 2 = column sums, 3 = blur
+     */
+    private static native void blurMasked(
+            Object bitmap,
+            Object mask,
+            int[] table,
+            int maxRadius,
+            int threadCount,
+            int threadIndex,
+            int round
+    );
+
+    /**
+     * Same as {@link #blurRounded(Object, int, int, int, int, float)}, the vertical pass
+     * also applies saturation, a tint and grain to every pixel it writes
+     * @param bitmap Bitmap objects to be blurred
+     * @param radius Blur radius
+     * @param threadCount Total number of threads
+     * @param threadIndex Current thread index
+     * @param round Blur round
+     * @param cornerRadius Corner radius in pixels
+     * @param tintColor Color composited over the blur
+     * @param saturation Saturation multiplier
+     * @param noise Grain strength (0-1)
+     */
+    private static native void blurEffects(
+            Object bitmap,
+            int radius,
+            int threadCount,
+            int threadIndex,
+            int round,
+            float cornerRadius,
+            int tintColor,
+            float saturation,
+            float noise
+    );
+
+    /**
+     * Run every pass of a blur on the calling thread in a single call
+     * @param bitmap Bitmap objects to be blurred
+     * @param radius Blur radius
+     * @param rounds Number of blur iterations
+     */
+    static native void blurBitmap(
+            Object bitmap,
+            int radius,
+            int rounds
+    );
+
+    /**
+     * Blur interleaved pixels held in a direct ByteBuffer or a primitive array
+     * @param buffer Pixel data
+     * @param offset Byte offset of the first blurred channel of the first pixel
+     * @param width Width in pixels
+     * @param height Height in pixels
+     * @param rowStride Bytes between rows
+     * @param pixelStride Bytes between pixels of a row
+     * @param channels Consecutive bytes blurred per pixel
+     * @param radius Blur radius
+     * @param threadCount Total number of threads
+     * @param threadIndex Current thread index
+     * @param round Blur round
+     */
+    static native void blurBuffer(Object buffer, int offset, int width, int height,
+                                  int rowStride, int pixelStride, int channels,
+                                  int radius, int threadCount, int threadIndex, int round);
+
+    /**
+     * Bicubic resize of a part of the destination rows
+     * @param input Source bitmap
+     * @param output Destination bitmap
+     * @param threadCount Total number of threads
+     * @param threadIndex Current thread index
+     */
+    private static native void upsample(Object input, Object output, int threadCount, int threadIndex);
+
+    /**
+     * Hash the visible pixels of a bitmap
+     * @param bitmap Bitmap to hash
+     * @param hash Receives the content fingerprint in its first element
+     * @return false if the pixels could not be read, e.g. of a hardware bitmap
+     */
+    static native boolean fingerprint(Object bitmap, long[] hash);
+
+    /**
+     * One bitmap of a batch
+     */
+    public static final class BatchItem {
+        public final Bitmap input;
+        public final Bitmap output;
+        public final float radius;
+        volatile boolean blurred;
+
+        /**
+         * @param input Source bitmap
+         * @param output Destination bitmap, may be the same as input
+         * @param radius Blur radius (2-100)
+         */
+        public BatchItem(Bitmap input, Bitmap output, float radius) {
+            this.input = input;
+            this.output = output;
+            this.radius = radius;
+        }
+
+        /**
+         * Whether the last batch this item was part of blurred it into its output.
+         * False if it failed, e.g. for a recycled or hardware bitmap or an immutable output,
+         * or if the batch was cancelled before reaching it
+         * @return true if the output holds the blur
+         */
+        public boolean isBlurred() {
+            return blurred;
+        }
+    }
+
+    /**
+     * Completion of a batch
+     */
+    public interface BatchCallback {
+        /**
+         * Called once all items are processed, on a worker thread of the blur pool,
+         * post to the main thread before touching views. Failed items are reported by
+         * {@link BatchItem#isBlurred()}
+         * @param items Items of the batch
+         * @param cancelled Whether the batch was cancelled before every item was blurred
+         */
+        void onBatchComplete(List<BatchItem> items, boolean cancelled);
+    }
+
+    /**
+     * Cancels the blurs it was passed to, without touching other blurs running on the same
+     * instance. A token may be reused, blurs started after a cancel run normally
+     */
+    public static final class CancellationToken {
+        final AtomicInteger generation = new AtomicInteger();
+
+        /**
+         * Cancel the blurs started with this token,
+         * they stop at the next stripe and leave their output partially blurred
+         */
+        public void cancel() {
+            generation.incrementAndGet();
+        }
+    }
+
     @Override
     public boolean prepare(Bitmap buffer, float radius) {
         this.radius = clamp(radius);
@@ -104,6 +298,26 @@ public class BlurNative implements Blur {
         this.blurRounds = Math.max(1, Math.min(15, rounds));
     }
 
+    /**
+     * Get the radius set by prepare
+     * @return Blur radius (2-100)
+     */
+    public float getRadius() {
+        return radius;
+    }
+
+    /**
+     * Set the effects applied by the final pass of {@link #blur(Bitmap, Bitmap)}
+     * @param effects Post effects, null for none
+     */
+    public void setEffects(BlurEffects effects) {
+        this.effects = effects != null ? effects : BlurEffects.NONE;
+    }
+
+    public BlurEffects getEffects() {
+        return effects;
+    }
+
     /**
      * Get the current number of blur rounds
      * @return Current blur rounds
@@ -115,16 +329,81 @@ public class BlurNative implements Blur {
     @Override
     public void release() {
         // Shared executor, do not shutdown
+        cancel();
+        summedAreaTable.set(null);
     }
 
     @Override
     public void blur(Bitmap input, Bitmap output) {
+        blur(input, output, radius, blurRounds, 0f, effects);
+    }
+
+    /**
+     * Blur with per-call parameters instead of the ones set by prepare and setBlurRounds.
+     * All state lives on the stack of the call, so any number of threads
+     * can blur different bitmaps through one instance at the same time
+     * @param input Source bitmap
+     * @param output Destination bitmap, may be the same as input
+     * @param radius Blur radius (2-100)
+     * @param rounds Number of blur iterations (1-15)
+     */
+    public boolean blur(Bitmap input, Bitmap output, float radius, int rounds) {
+        return blur(input, output, radius, rounds, 0f);
+    }
+
+    /**
+     * Blur with per-call parameters and clip the result to rounded corners.
+     * The corner mask is applied by the final vertical pass, pixels outside
+     * the shape become transparent without an extra bitmap or composite
+     * @param input Source bitmap
+     * @param output Destination bitmap, may be the same as input
+     * @param radius Blur radius (2-100)
+     * @param rounds Number of blur iterations (1-15)
+     * @param cornerRadius Corner radius in pixels of output, 0 for square corners
+     * @return false if the blur was cancelled or failed, output is then incomplete
+     */
+    public boolean blur(Bitmap input, Bitmap output, float radius, int rounds, float cornerRadius) {
+        return blur(input, output, radius, rounds, cornerRadius, BlurEffects.NONE);
+    }
+
+    /**
+     * Blur with per-call parameters, rounded corners and post effects.
+     * Tint, saturation and grain are applied by the final vertical pass to the
+     * low resolution pixels, so drawing the result needs no overlay fill
+     * @param input Source bitmap
+     * @param output Destination bitmap, may be the same as input
+     * @param radius Blur radius (2-100)
+     * @param rounds Number of blur iterations (1-15)
+     * @param cornerRadius Corner radius in pixels of output, 0 for square corners
+     * @param effects Effects of the final pass
+     * @return false if the blur was cancelled or failed, output is then incomplete
+     */
+    public boolean blur(Bitmap input, Bitmap output, float radius, int rounds, float cornerRadius, BlurEffects effects) {
+        return blur(input, output, radius, rounds, cornerRadius, effects, instanceToken);
+    }
+
+    /**
+     * Same as {@link #blur(Bitmap, Bitmap, float, int, float, BlurEffects)}, cancelled only through its token
+     * @param input Source bitmap
+     * @param output Destination bitmap, may be the same as input
+     * @param radius Blur radius (2-100)
+     * @param rounds Number of blur iterations (1-15)
+     * @param cornerRadius Corner radius in pixels of output, 0 for square corners
+     * @param effects Effects of the final pass
+     * @param token Token of the caller, null for the one of this instance
+     * @return false if the blur was cancelled or failed, output is then incomplete
+     */
+    public boolean blur(Bitmap input, Bitmap output, float radius, int rounds, float cornerRadius,
+                        BlurEffects effects, CancellationToken token) {
         if (input == null || output == null ||
-                input.isRecycled() || output.isRecycled()) return;
+                input.isRecycled() || output.isRecycled()) return false;
 
-        if (!isBlurring.compareAndSet(false, true)) return;
+        int r = (int) clamp(radius);
+        int blurRounds = Math.max(1, Math.min(15, rounds));
+        BlurEffects finalEffects = effects != null ? effects : BlurEffects.NONE;
 
         try {
+            BlurRuntime.loadNativeLibrary();
             if (input != output) {
                 // Clear the output bitmap to ensure no previous content remains
                 // This is important when bitmaps are reused from pools
@@ -134,57 +413,352 @@ public class BlurNative implements Blur {
             // Apply blur iterations
             // Each iteration is a complete 2-pass blur (horizontal + vertical)
             // More iterations = stronger blur effect
+            AtomicInteger generation = (token != null ? token : instanceToken).generation;
+            int expected = generation.get();
             for (int iteration = 0; iteration < blurRounds; iteration++) {
-                doBlurRound(output, 1); // Horizontal pass
-                doBlurRound(output, 2); // Vertical pass
+                boolean last = iteration == blurRounds - 1;
+                if (!doBlurRound(output, r, 1, 0f, BlurEffects.NONE, generation, expected)) return false; // Horizontal pass
+                if (!doBlurRound(output, r, 2, last ? cornerRadius : 0f, last ? finalEffects : BlurEffects.NONE, generation, expected)) return false; // Vertical pass
             }
+            return true;
         } catch (Exception e) {
             // Only print stack trace if debug mode is enabled
             // Note: DEBUG may be null if Context was never provided
             if (Boolean.TRUE.equals(DEBUG)) e.printStackTrace();
-        } finally {
-            isBlurring.set(false);
+            return false;
         }
     }
 
     /**
-     * Perform fuzzy operations
-     * @param bitmap Blurry bitmaps are needed
-     * @param round Blur round
+     * Progressive blur, sharp and transparent at one end, fully blurred and covered
+     * by the overlay color at the other. The radius varies per pixel inside the kernel,
+     * so the output is drawn as is, without a layer or gradient shaders
+     * @param input Source bitmap
+     * @param output Destination bitmap, may be the same as input
+     * @param maxRadius Blur radius at the fully blurred end (2-100)
+     * @param rounds Number of blur iterations (1-15)
+     * @param direction One of the ProgressiveBlurView direction constants
+     * @param overlayColor Overlay color, its alpha grows with the blur
+     * @return false if the blur was cancelled or failed, output is then incomplete
      */
-    private void doBlurRound(Bitmap bitmap, int round) {
-        int r = (int) radius;
+    public boolean blurProgressive(Bitmap input, Bitmap output, float maxRadius, int rounds, int direction, int overlayColor) {
+        return blurProgressive(input, output, maxRadius, rounds, direction, overlayColor, instanceToken);
+    }
 
-        // Optimization: For small images or single-core devices, skip thread overhead
-        if (THREAD_COUNT == 1) {
-            blur(bitmap, r, 1, 0, round);
-            return;
+    /**
+     * Same as {@link #blurProgressive(Bitmap, Bitmap, float, int, int, int)}, cancelled only through its token
+     * @param input Source bitmap
+     * @param output Destination bitmap, may be the same as input
+     * @param maxRadius Blur radius at the fully blurred end (2-100)
+     * @param rounds Number of blur iterations (1-15)
+     * @param direction One of the ProgressiveBlurView direction constants
+     * @param overlayColor Overlay color, its alpha grows with the blur
+     * @param token Token of the caller, null for the one of this instance
+     * @return false if the blur was cancelled or failed, output is then incomplete
+     */
+    public boolean blurProgressive(Bitmap input, Bitmap output, float maxRadius, int rounds, int direction,
+                                   int overlayColor, CancellationToken token) {
+        if (input == null || output == null ||
+                input.isRecycled() || output.isRecycled()) return false;
+
+        int r = (int) clamp(maxRadius);
+        int blurRounds = Math.max(1, Math.min(15, rounds));
+
+        try {
+            BlurRuntime.loadNativeLibrary();
+            if (input != output) {
+                output.eraseColor(0);
+                new Canvas(output).drawBitmap(input, 0, 0, null);
+            }
+            int stripes = BlurScheduler.getStripeCount(output.getWidth(), output.getHeight());
+            AtomicInteger generation = (token != null ? token : instanceToken).generation;
+            int expected = generation.get();
+            for (int iteration = 0; iteration < blurRounds; iteration++) {
+                for (int pass = 1; pass <= 2; pass++) {
+                    final int round = pass;
+                    final boolean finish = pass == 2 && iteration == blurRounds - 1;
+                    if (!BlurScheduler.run(stripes, (count, index) -> blurProgressive(output, r, direction,
+                            overlayColor, count, index, round, finish), generation, expected)) return false;
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            // Only print stack trace if debug mode is enabled
+            // Note: DEBUG may be null if Context was never provided
+            if (Boolean.TRUE.equals(DEBUG)) e.printStackTrace();
+            return false;
         }
+    }
 
-        CountDownLatch latch = new CountDownLatch(THREAD_COUNT);
+    /**
+     * Blur with a strength that follows a mask, e.g. sharp inside a circle and blurred around it.
+     * A summed-area table of the pixels is built once per round, after which every pixel
+     * costs the same whatever its radius. Alpha is left untouched
+     * @param input Source bitmap
+     * @param output Destination bitmap, may be the same as input
+     * @param mask ALPHA_8 bitmap stretched over output, opaque = maxRadius, transparent = sharp
+     * @param maxRadius Blur radius where the mask is opaque (2-100)
+     * @param rounds Number of blur iterations (1-15)
+     * @return false if the blur was cancelled or failed, output is then incomplete
+     */
+    public boolean blurMasked(Bitmap input, Bitmap output, Bitmap mask, float maxRadius, int rounds) {
+        return blurMasked(input, output, mask, maxRadius, rounds, instanceToken);
+    }
 
-        for (int i = 0; i < THREAD_COUNT; i++) {
-            final int index = i;
-            EXECUTOR.execute(() -> {
-                try {
-                    blur(bitmap, r, THREAD_COUNT, index, round);
-                } catch (Exception e) {
-                    // Only print stack trace if debug mode is enabled
-                    // Note: DEBUG may be null if Context was never provided
-                    if (Boolean.TRUE.equals(DEBUG)) e.printStackTrace();
-                } finally {
-                    latch.countDown();
+    /**
+     * Same as {@link #blurMasked(Bitmap, Bitmap, Bitmap, float, int)}, cancelled only through its token
+     * @param input Source bitmap
+     * @param output Destination bitmap, may be the same as input
+     * @param mask ALPHA_8 bitmap stretched over output, opaque = maxRadius, transparent = sharp
+     * @param maxRadius Blur radius where the mask is opaque (2-100)
+     * @param rounds Number of blur iterations (1-15)
+     * @param token Token of the caller, null for the one of this instance
+     * @return false if the blur was cancelled or failed, output is then incomplete
+     */
+    public boolean blurMasked(Bitmap input, Bitmap output, Bitmap mask, float maxRadius, int rounds,
+                              CancellationToken token) {
+        if (input == null || output == null || mask == null ||
+                input.isRecycled() || output.isRecycled() || mask.isRecycled()) return false;
+        if (mask.getConfig() != Bitmap.Config.ALPHA_8) {
+            throw new IllegalArgumentException("Mask must be an ALPHA_8 bitmap");
+        }
+
+        int r = (int) clamp(maxRadius);
+        int blurRounds = Math.max(1, Math.min(15, rounds));
+        int size = 3 * (output.getWidth() + 1) * (output.getHeight() + 1);
+
+        // Taken for the duration of the blur, a concurrent blur allocates its own
+        int[] table = summedAreaTable.getAndSet(null);
+        try {
+            if (table == null || table.length < size) table = new int[size];
+            BlurRuntime.loadNativeLibrary();
+            if (input != output) {
+                output.eraseColor(0);
+                new Canvas(output).drawBitmap(input, 0, 0, null);
+            }
+            int stripes = BlurScheduler.getStripeCount(output.getWidth(), output.getHeight());
+            AtomicInteger generation = (token != null ? token : instanceToken).generation;
+            int expected = generation.get();
+            final int[] sat = table;
+            for (int iteration = 0; iteration < blurRounds; iteration++) {
+                for (int pass = 1; pass <= 3; pass++) {
+                    final int round = pass;
+                    if (!BlurScheduler.run(stripes, (count, index) -> blurMasked(output, mask, sat,
+                            r, count, index, round), generation, expected)) return false;
                 }
-            });
+            }
+            return true;
+        } catch (Exception e) {
+            // Only print stack trace if debug mode is enabled
+            // Note: DEBUG may be null if Context was never provided
+            if (Boolean.TRUE.equals(DEBUG)) e.printStackTrace();
+            return false;
+        } finally {
+            if (table != null) summedAreaTable.set(table);
         }
+    }
+
+    /**
+     * Blur 32-bit pixels in a direct ByteBuffer in place, e.g. frames of MediaCodec
+     * or a renderer, without wrapping them in a Bitmap. Alpha is left untouched
+     * @param pixels Direct buffer, its position is ignored
+     * @param width Width in pixels
+     * @param height Height in pixels
+     * @param rowStride Bytes between rows
+     * @param channelOrder Byte order of a pixel, one of the CHANNELS_ constants
+     * @param radius Blur radius (2-100)
+     * @param rounds Number of blur iterations (1-15)
+     */
+    public void blur(ByteBuffer pixels, int width, int height, int rowStride, int channelOrder, float radius, int rounds) {
+        if (!pixels.isDirect() || pixels.isReadOnly()) {
+            throw new IllegalArgumentException("Pixels must be in a writable direct buffer");
+        }
+        if (channelOrder < CHANNELS_RGBA || channelOrder > CHANNELS_ABGR) {
+            throw new IllegalArgumentException("Unknown channel order " + channelOrder);
+        }
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+        if (rowStride < 4L * width) {
+            throw new IllegalArgumentException("Row stride is shorter than a row of pixels");
+        }
+        if ((long) rowStride * (height - 1) + 4L * width > pixels.capacity()) {
+            throw new IllegalArgumentException("Buffer is too small for the given size and stride");
+        }
+        // Colors follow alpha in ARGB and ABGR
+        int offset = channelOrder == CHANNELS_ARGB || channelOrder == CHANNELS_ABGR ? 1 : 0;
+        blurBuffer(pixels, offset, width, height, rowStride, radius, rounds);
+    }
+
+    /**
+     * Blur color ints, as used by {@link Bitmap#getPixels}, in place. Alpha is left untouched
+     * @param pixels ARGB color ints
+     * @param offset Index of the first pixel
+     * @param stride Pixels between rows
+     * @param width Width in pixels
+     * @param height Height in pixels
+     * @param radius Blur radius (2-100)
+     * @param rounds Number of blur iterations (1-15)
+     */
+    public void blur(int[] pixels, int offset, int stride, int width, int height, float radius, int rounds) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+        // Strides are passed on in bytes
+        if (stride < width || stride > Integer.MAX_VALUE / 4) {
+            throw new IllegalArgumentException("Stride is shorter than a row of pixels or too large");
+        }
+        if (offset < 0 || (long) offset + (long) stride * (height - 1) + width > pixels.length) {
+            throw new IllegalArgumentException("Array is too small for the given size and stride");
+        }
+        // Color ints are little-endian in memory, blue, green and red come before alpha
+        blurBuffer(pixels, offset * 4, width, height, stride * 4, radius, rounds);
+    }
+
+    private void blurBuffer(Object pixels, int offset, int width, int height, int rowStride, float radius, int rounds) {
+        BlurRuntime.loadNativeLibrary();
+
+        int r = (int) clamp(radius);
+        int stripes = BlurScheduler.getStripeCount(width, height);
+        AtomicInteger generation = instanceToken.generation;
+        int expected = generation.get();
+        for (int iteration = 0; iteration < Math.max(1, Math.min(15, rounds)); iteration++) {
+            for (int pass = 1; pass <= 2; pass++) {
+                final int round = pass;
+                if (!BlurScheduler.run(stripes, (count, index) -> blurBuffer(pixels, offset, width, height,
+                        rowStride, 4, 3, r, count, index, round), generation, expected)) return;
+            }
+        }
+    }
+
+    /**
+     * Scale a blurred bitmap up with a bicubic filter, so a heavily downsampled
+     * blur stays smooth instead of showing blocks once it is stretched over the view
+     * @param input Blurred bitmap
+     * @param output Larger destination bitmap
+     */
+    public void upsample(Bitmap input, Bitmap output) {
+        if (input == null || output == null ||
+                input.isRecycled() || output.isRecycled()) return;
+
+        try {
+            BlurRuntime.loadNativeLibrary();
+            int stripes = BlurScheduler.getStripeCount(output.getWidth(), output.getHeight());
+            AtomicInteger generation = instanceToken.generation;
+            BlurScheduler.run(stripes, (count, index) -> upsample(input, output, count, index),
+                    generation, generation.get());
+        } catch (Exception e) {
+            // Only print stack trace if debug mode is enabled
+            // Note: DEBUG may be null if Context was never provided
+            if (Boolean.TRUE.equals(DEBUG)) e.printStackTrace();
+        }
+    }
+
+    /**
+     * Blur many small bitmaps, e.g. thumbnails, without blocking the caller.
+     * Each item is one unit of work on the worker pool and runs all of its passes in a
+     * single native call, instead of being striped across threads like {@link #blur(Bitmap, Bitmap)}
+     * @param items Items to blur, using the blur rounds of this instance
+     * @param callback Called once for the whole batch, may be null
+     */
+    public void blurBatch(List<BatchItem> items, BatchCallback callback) {
+        blurBatch(items, callback, instanceToken);
+    }
+
+    /**
+     * Same as {@link #blurBatch(List, BatchCallback)}, cancelled only through its token
+     * @param items Items to blur, using the blur rounds of this instance
+     * @param callback Called once for the whole batch, may be null
+     * @param token Token of the caller, null for the one of this instance
+     */
+    public void blurBatch(List<BatchItem> items, BatchCallback callback, CancellationToken token) {
+        List<BatchItem> batch = new ArrayList<>(items);
+        for (BatchItem item : batch) item.blurred = false;
+        if (batch.isEmpty()) {
+            // Still on a worker thread, the callback thread does not depend on the batch
+            if (callback != null) BlurRuntime.getExecutor().execute(() -> callback.onBatchComplete(batch, false));
+            return;
+        }
+        int rounds = blurRounds;
+        AtomicInteger generation = (token != null ? token : instanceToken).generation;
+        int expected = generation.get();
+
+        BlurRuntime.getExecutor().execute(() -> {
+            boolean completed = false;
+            try {
+                BlurRuntime.loadNativeLibrary();
+                completed = BlurScheduler.run(batch.size(),
+                        (count, index) -> blurItem(batch.get(index), rounds), generation, expected);
+            } catch (Exception e) {
+                // Only print stack trace if debug mode is enabled
+                // Note: DEBUG may be null if Context was never provided
+                if (Boolean.TRUE.equals(DEBUG)) e.printStackTrace();
+            }
+            if (callback != null) callback.onBatchComplete(batch, !completed);
+        });
+    }
+
+    private static void blurItem(BatchItem item, int rounds) {
+        Bitmap input = item.input;
+        Bitmap output = item.output;
+        if (input == null || output == null ||
+                input.isRecycled() || output.isRecycled()) return;
+        // The native blur silently skips other configs, report them as failed instead
+        if (!output.isMutable() || output.getConfig() != Bitmap.Config.ARGB_8888) return;
 
         try {
-            latch.await();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            if (input != output) {
+                output.eraseColor(0);
+                new Canvas(output).drawBitmap(input, 0, 0, null);
+            }
+            blurBitmap(output, (int) clamp(item.radius), rounds);
+            item.blurred = true;
+        } catch (Exception e) {
+            if (Boolean.TRUE.equals(DEBUG)) e.printStackTrace();
         }
     }
 
+    /**
+     * Perform fuzzy operations
+     * @param bitmap Blurry bitmaps are needed
+     * @param r Blur radius
+     * @param round Blur round
+     * @param cornerRadius Corner radius applied by this pass, 0 for none
+     * @param effects Effects applied by this pass
+     * @param generation Generation counter of the token the blur was started with
+     * @param expected Generation the blur was started with
+     * @return false if the blur was cancelled
+     */
+    private boolean doBlurRound(Bitmap bitmap, int r, int round, float cornerRadius, BlurEffects effects,
+                                AtomicInteger generation, int expected) {
+        int stripes = BlurScheduler.getStripeCount(bitmap.getWidth(), bitmap.getHeight());
+
+        return BlurScheduler.run(stripes, (count, index) -> {
+            try {
+                if (!effects.isEmpty()) {
+                    blurEffects(bitmap, r, count, index, round, cornerRadius,
+                            effects.tintColor, effects.saturation, effects.noise);
+                } else if (cornerRadius > 0) {
+                    blurRounded(bitmap, r, count, index, round, cornerRadius);
+                } else {
+                    blur(bitmap, r, count, index, round);
+                }
+            } catch (Exception e) {
+                // Only print stack trace if debug mode is enabled
+                // Note: DEBUG may be null if Context was never provided
+                if (Boolean.TRUE.equals(DEBUG)) e.printStackTrace();
+            }
+        }, generation, expected);
+    }
+
+    /**
+     * Cancel the blurs currently running on this instance that were started without a
+     * {@link CancellationToken}, they stop at the next stripe and leave their output partially blurred
+     */
+    public void cancel() {
+        instanceToken.cancel();
+    }
+
     private static float clamp(float value) {
         return Math.max((float) BlurNative.MIN_RADIUS, Math.min((float) BlurNative.MAX_RADIUS, value));
     }
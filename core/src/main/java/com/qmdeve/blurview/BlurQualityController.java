@@ -0,0 +1,174 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025-2026 Donny Yale
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ===========================================
+ * Project: QmBlurView
+ * Created Date: 2025-10-21
+ * Author: Donny Yale
+ * GitHub: https://github.com/QmDeve/QmBlurView
+ * Website: https://blurview.qmdeve.com
+ * ===========================================
+ */
+
+package com.qmdeve.blurview;
+
+/**
+ * Keeps the capture and blur time of a view under a frame budget.
+ * Every measured frame feeds a moving average, when it stays over the budget
+ * the quality level drops, raising the downsample factor or lowering the rounds,
+ * and when it stays well under the budget the level is restored one step at a time.
+ * Separate thresholds and frame counts for both directions keep the level from oscillating
+ */
+public final class BlurQualityController {
+
+    // Quality never changes, the view uses its configured downsample factor and rounds
+    public static final int POLICY_FIXED = 0;
+
+    // Quality follows the measured frame time
+    public static final int POLICY_ADAPTIVE = 1;
+
+    // Adaptive against half the budget, never above a reduced quality
+    public static final int POLICY_BATTERY_SAVER = 2;
+
+    // Default time for capture and blur of one frame, 3ms
+    private static final long DEFAULT_BUDGET_NANOS = 3_000_000L;
+
+    // Weight of the newest frame in the moving average
+    private static final float EWMA_WEIGHT = 0.2f;
+
+    // Frames in a row over the budget before quality drops
+    private static final int DEGRADE_FRAMES = 3;
+
+    // Frames in a row under RESTORE_RATIO of the budget before quality is restored
+    private static final int RESTORE_FRAMES = 30;
+    private static final float RESTORE_RATIO = 0.5f;
+
+    // Downsample multiplier and dropped rounds of each level, from full quality down
+    private static final float[] LEVEL_DOWNSAMPLE = {1f, 1.5f, 1.5f, 2f, 3f, 3f};
+    private static final int[] LEVEL_ROUNDS_DROP = {0, 0, 1, 1, 1, 14};
+
+    // Best level of the battery saver policy
+    private static final int BATTERY_SAVER_LEVEL = 3;
+
+    private int policy = POLICY_FIXED;
+    private long budgetNanos = DEFAULT_BUDGET_NANOS;
+    private float averageNanos = -1f;
+    private int level = 0;
+    private int overFrames = 0;
+    private int underFrames = 0;
+
+    /**
+     * Set the quality policy
+     * @param policy One of the POLICY_ constants
+     */
+    public void setPolicy(int policy) {
+        if (policy < POLICY_FIXED || policy > POLICY_BATTERY_SAVER) {
+            throw new IllegalArgumentException("Unknown quality policy: " + policy);
+        }
+        this.policy = policy;
+        level = policy == POLICY_BATTERY_SAVER ? BATTERY_SAVER_LEVEL : 0;
+        reset();
+    }
+
+    public int getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Set the time capture and blur of one frame should stay under
+     * @param millis Budget in milliseconds
+     */
+    public void setFrameBudget(float millis) {
+        budgetNanos = Math.max(1L, (long) (millis * 1_000_000L));
+        reset();
+    }
+
+    public float getFrameBudget() {
+        return budgetNanos / 1_000_000f;
+    }
+
+    /**
+     * Record the capture and blur time of a frame
+     * @param nanos Elapsed time in nanoseconds
+     * @return Whether the quality level changed, the view should then prepare its buffers again
+     */
+    public boolean onFrame(long nanos) {
+        if (policy == POLICY_FIXED) return false;
+
+        averageNanos = averageNanos < 0 ? nanos : averageNanos + EWMA_WEIGHT * (nanos - averageNanos);
+        long budget = policy == POLICY_BATTERY_SAVER ? budgetNanos / 2 : budgetNanos;
+        int best = policy == POLICY_BATTERY_SAVER ? BATTERY_SAVER_LEVEL : 0;
+
+        if (averageNanos > budget) {
+            underFrames = 0;
+            if (++overFrames >= DEGRADE_FRAMES && level < LEVEL_DOWNSAMPLE.length - 1) {
+                level++;
+                reset();
+                return true;
+            }
+        } else if (averageNanos < budget * RESTORE_RATIO) {
+            overFrames = 0;
+            if (++underFrames >= RESTORE_FRAMES && level > best) {
+                level--;
+                reset();
+                return true;
+            }
+        } else {
+            overFrames = 0;
+            underFrames = 0;
+        }
+        return false;
+    }
+
+    /**
+     * Get the factor the configured downsample factor is multiplied with
+     * @return Multiplier (>= 1)
+     */
+    public float getDownsampleMultiplier() {
+        return policy == POLICY_FIXED ? 1f : LEVEL_DOWNSAMPLE[level];
+    }
+
+    /**
+     * Get the rounds to blur with at the current level
+     * @param rounds Configured blur rounds
+     * @return Rounds to use (>= 1)
+     */
+    public int getRounds(int rounds) {
+        return policy == POLICY_FIXED ? rounds : Math.max(1, rounds - LEVEL_ROUNDS_DROP[level]);
+    }
+
+    /**
+     * Get the current quality level
+     * @return 0 for full quality, higher is coarser
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    // The average restarts after a change, frames measured at the old level no longer apply
+    private void reset() {
+        averageNanos = -1f;
+        overFrames = 0;
+        underFrames = 0;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025-2026 Donny Yale
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ===========================================
+ * Project: QmBlurView
+ * Created Date: 2025-10-21
+ * Author: Donny Yale
+ * GitHub: https://github.com/QmDeve/QmBlurView
+ * Website: https://blurview.qmdeve.com
+ * ===========================================
+ */
+
+package com.qmdeve.blurview;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import androidx.annotation.RestrictTo;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide runtime shared by all blur views and transformations.
+ * Owns the PixelCopy thread, refcounted by attached views, the blur worker
+ * pool, the background thread and the native library, all of which are started lazily
+ */
+public final class BlurRuntime {
+    private static final String TAG = "BlurRuntime";
+
+    // Idle blur workers are stopped after this delay
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 30;
+
+    private static final Object LOCK = new Object();
+    private static final int THREAD_COUNT;
+
+    private static int sRefCount;
+    private static HandlerThread sPixelCopyThread;
+    private static Handler sPixelCopyHandler;
+    private static ThreadPoolExecutor sExecutor;
+    private static Executor sCustomExecutor;
+    private static ThreadPoolExecutor sBackgroundExecutor;
+    private static volatile boolean sNativeLoaded;
+
+    static {
+        int cpuCount = Runtime.getRuntime().availableProcessors();
+        THREAD_COUNT = Math.max(1, cpuCount);
+    }
+
+    private BlurRuntime() {
+    }
+
+    /**
+     * Register an attached blur view
+     */
+    public static void acquire() {
+        synchronized (LOCK) {
+            sRefCount++;
+        }
+    }
+
+    /**
+     * Unregister a detached blur view,
+     * the PixelCopy thread is stopped once no view is attached
+     */
+    public static void release() {
+        synchronized (LOCK) {
+            if (sRefCount == 0) return;
+            if (--sRefCount == 0 && sPixelCopyThread != null) {
+                sPixelCopyThread.quitSafely();
+                sPixelCopyThread = null;
+                sPixelCopyHandler = null;
+            }
+        }
+    }
+
+    /**
+     * Get the handler of the shared PixelCopy thread, starting it on first use
+     * @return Handler, or null when PixelCopy is unavailable or no view is attached
+     */
+    public static Handler getPixelCopyHandler() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) return null;
+        synchronized (LOCK) {
+            if (sRefCount == 0) return null;
+            if (sPixelCopyThread == null) {
+                sPixelCopyThread = new HandlerThread("BlurViewPixelCopy");
+                sPixelCopyThread.start();
+                sPixelCopyHandler = new Handler(sPixelCopyThread.getLooper());
+            }
+            return sPixelCopyHandler;
+        }
+    }
+
+    /**
+     * Run blur stripes on an executor of the application instead of the built-in pool.
+     * The calling thread always works on its own blur too, so the executor
+     * only has to provide the extra parallelism
+     * @param executor Executor, or null to restore the built-in pool
+     */
+    public static void setBlurExecutor(Executor executor) {
+        synchronized (LOCK) {
+            sCustomExecutor = executor;
+        }
+    }
+
+    /**
+     * Get the maximum number of threads, caller included, a blur is striped over
+     * @return Thread count
+     */
+    static int getThreadCount() {
+        return THREAD_COUNT;
+    }
+
+    /**
+     * Get the executor for blur helpers, creating the built-in pool on first use
+     * @return Executor
+     */
+    static Executor getExecutor() {
+        synchronized (LOCK) {
+            if (sCustomExecutor != null) return sCustomExecutor;
+            if (sExecutor == null) {
+                // Helpers take the priority of the blurring thread while they work for it
+                int helpers = Math.max(1, THREAD_COUNT - 1);
+                ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                        helpers, helpers,
+                        WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(),
+                        r -> {
+                            Thread t = new Thread(r, "NativeBlurThread");
+                            t.setDaemon(true);
+                            return t;
+                        });
+                executor.allowCoreThreadTimeOut(true);
+                sExecutor = executor;
+            }
+            return sExecutor;
+        }
+    }
+
+    /**
+     * Get the serial executor for background work that is not a blur,
+     * e.g. converting hardware bitmaps, so it never occupies a blur helper
+     * @return Executor
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
+    public static Executor getBackgroundExecutor() {
+        synchronized (LOCK) {
+            if (sBackgroundExecutor == null) {
+                ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                        1, 1,
+                        WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(),
+                        r -> {
+                            Thread t = new Thread(r, "BlurBackground");
+                            t.setDaemon(true);
+                            return t;
+                        });
+                executor.allowCoreThreadTimeOut(true);
+                sBackgroundExecutor = executor;
+            }
+            return sBackgroundExecutor;
+        }
+    }
+
+    /**
+     * Load libQmBlur.so if it is not loaded yet
+     */
+    static void loadNativeLibrary() {
+        if (sNativeLoaded) return;
+        synchronized (LOCK) {
+            if (!sNativeLoaded) {
+                System.loadLibrary("QmBlur");
+                sNativeLoaded = true;
+            }
+        }
+    }
+
+    /**
+     * Load the native library and warm up the blur kernels on a background thread,
+     * call this during application startup to keep the first blur off the cold path
+     */
+    public static void prewarm() {
+        Thread thread = new Thread(() -> {
+            try {
+                loadNativeLibrary();
+                getExecutor();
+
+                Bitmap bitmap = Bitmap.createBitmap(64, 64, Bitmap.Config.ARGB_8888);
+                BlurNative blur = new BlurNative();
+                blur.prepare(bitmap, 8);
+                blur.blur(bitmap, bitmap);
+                bitmap.recycle();
+            } catch (Throwable t) {
+                Log.w(TAG, "Blur prewarm failed: " + t.getMessage());
+            }
+        }, "BlurPrewarm");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
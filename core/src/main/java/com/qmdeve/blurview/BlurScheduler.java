@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025-2026 Donny Yale
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ===========================================
+ * Project: QmBlurView
+ * Created Date: 2025-10-21
+ * Author: Donny Yale
+ * GitHub: https://github.com/QmDeve/QmBlurView
+ * Website: https://blurview.qmdeve.com
+ * ===========================================
+ */
+
+package com.qmdeve.blurview;
+
+import android.os.Process;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the stripes of one blur pass.
+ * The calling thread claims stripes itself, so a busy or slow pool can never
+ * leave it waiting on queued work, and helper threads run at the priority of
+ * the caller while they work on its stripes
+ */
+final class BlurScheduler {
+
+    // Pixels a stripe should cover before splitting it further pays for the hand-off
+    private static final int PIXELS_PER_STRIPE = 48 * 1024;
+
+    /**
+     * One stripe of a pass
+     */
+    interface Stripe {
+        void run(int stripeCount, int stripeIndex);
+    }
+
+    private BlurScheduler() {
+    }
+
+    /**
+     * Pick the number of stripes for a bitmap from its pixel count
+     * @param width Bitmap width
+     * @param height Bitmap height
+     * @return Stripe count, 1 runs the pass on the caller only
+     */
+    static int getStripeCount(int width, int height) {
+        long stripes = (long) width * height / PIXELS_PER_STRIPE;
+        // Every stripe needs a few rows and columns to itself
+        int limit = Math.min(BlurRuntime.getThreadCount(), Math.max(1, Math.min(width, height) / 8));
+        return (int) Math.max(1, Math.min(limit, stripes));
+    }
+
+    /**
+     * Run all stripes of a pass, or all items of a batch, and wait for them
+     * @param stripeCount Number of stripes
+     * @param stripe Stripe body
+     * @param generation Generation counter of the owner, bumped to cancel
+     * @param expected Generation the job was started with
+     * @return false if the job was cancelled before every stripe ran
+     */
+    static boolean run(int stripeCount, Stripe stripe, AtomicInteger generation, int expected) {
+        if (generation.get() != expected) return false;
+        if (stripeCount <= 1) {
+            stripe.run(1, 0);
+            return generation.get() == expected;
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(stripeCount);
+        int priority = Process.getThreadPriority(Process.myTid());
+
+        Runnable helper = () -> {
+            int own = Process.getThreadPriority(Process.myTid());
+            boolean boosted = setPriority(priority);
+            try {
+                drain(stripeCount, stripe, next, done, generation, expected);
+            } finally {
+                if (boosted) setPriority(own);
+            }
+        };
+
+        // Helpers drain stripes until none are left, more of them than threads only queue up
+        Executor executor = BlurRuntime.getExecutor();
+        int helpers = Math.min(stripeCount, BlurRuntime.getThreadCount()) - 1;
+        for (int i = 0; i < helpers; i++) {
+            try {
+                executor.execute(helper);
+            } catch (RejectedExecutionException e) {
+                // The caller drains whatever the pool did not take
+                break;
+            }
+        }
+
+        drain(stripeCount, stripe, next, done, generation, expected);
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return generation.get() == expected;
+    }
+
+    private static void drain(int stripeCount, Stripe stripe, AtomicInteger next,
+                              CountDownLatch done, AtomicInteger generation, int expected) {
+        int index;
+        while ((index = next.getAndIncrement()) < stripeCount) {
+            try {
+                if (generation.get() == expected) stripe.run(stripeCount, index);
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+    private static boolean setPriority(int priority) {
+        try {
+            Process.setThreadPriority(priority);
+            return true;
+        } catch (IllegalArgumentException | SecurityException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025-2026 Donny Yale
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ===========================================
+ * Project: QmBlurView
+ * Created Date: 2025-10-21
+ * Author: Donny Yale
+ * GitHub: https://github.com/QmDeve/QmBlurView
+ * Website: https://blurview.qmdeve.com
+ * ===========================================
+ */
+
+package com.qmdeve.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+import com.qmdeve.blurview.util.BitmapPool;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Blurs images too large to hold as one bitmap.
+ * The image is streamed as tiles, each read with a halo as wide as the reach of the kernel
+ * so its inner part comes out as if the whole image had been blurred.
+ * Tiles are blurred in parallel and handed to a {@link TileSink} one by one,
+ * peak memory depends on the tile size and thread count, not on the image size
+ */
+public class TiledBlur {
+
+    // The maximum value of the blur radius
+    private static final int MAX_RADIUS = 100;
+
+    // The minimum value of the blur radius
+    private static final int MIN_RADIUS = 2;
+
+    private static final int DEFAULT_TILE_SIZE = 512;
+
+    private final int radius;
+    private final int rounds;
+    private int tileSize = DEFAULT_TILE_SIZE;
+
+    /**
+     * Receives blurred tiles, called concurrently from the blurring threads
+     */
+    public interface TileSink {
+        /**
+         * @param tile Blurred tile including its halo, only valid during the call
+         * @param src Part of the tile that belongs to the output
+         * @param left Left edge of src in the image
+         * @param top Top edge of src in the image
+         */
+        void onTile(Bitmap tile, Rect src, int left, int top);
+    }
+
+    /**
+     * Provides regions of the image
+     */
+    private interface TileSource {
+        Bitmap read(Rect region, BitmapPool pool);
+    }
+
+    /**
+     * @param radius Blur radius (2-100)
+     * @param rounds Number of blur iterations (1-15)
+     */
+    public TiledBlur(float radius, int rounds) {
+        this.radius = (int) Math.max(MIN_RADIUS, Math.min(MAX_RADIUS, radius));
+        this.rounds = Math.max(1, Math.min(15, rounds));
+    }
+
+    /**
+     * Set the size of the output part of each tile
+     * @param tileSize Tile size in pixels
+     */
+    public void setTileSize(int tileSize) {
+        this.tileSize = Math.max(64, tileSize);
+    }
+
+    /**
+     * Sink that draws the tiles into a bitmap, for images that fit in memory once
+     * @param output Mutable bitmap of the image size
+     * @return Sink
+     */
+    public static TileSink into(Bitmap output) {
+        Canvas canvas = new Canvas(output);
+        Rect dst = new Rect();
+        return (tile, src, left, top) -> {
+            synchronized (canvas) {
+                dst.set(left, top, left + src.width(), top + src.height());
+                canvas.drawBitmap(tile, src, dst, null);
+            }
+        };
+    }
+
+    /**
+     * Blur a bitmap tile by tile.
+     * If a tile or the sink throws, the remaining tiles are skipped and the exception is
+     * rethrown after all running tiles have finished
+     * @param source Source bitmap
+     * @param sink Receives the blurred tiles
+     */
+    public void blur(Bitmap source, TileSink sink) {
+        run(source.getWidth(), source.getHeight(), (region, pool) -> {
+            Bitmap tile = pool.get(region.width(), region.height());
+            tile.eraseColor(0);
+            new Canvas(tile).drawBitmap(source, region, new Rect(0, 0, region.width(), region.height()), null);
+            return tile;
+        }, sink);
+    }
+
+    /**
+     * Blur an encoded image tile by tile without decoding it whole.
+     * If decoding, a tile or the sink throws, the remaining tiles are skipped and the
+     * exception is rethrown after all running tiles have finished
+     * @param decoder Region decoder of the image
+     * @param sink Receives the blurred tiles
+     */
+    public void blur(BitmapRegionDecoder decoder, TileSink sink) {
+        run(decoder.getWidth(), decoder.getHeight(), (region, pool) -> {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+            options.inMutable = true;
+            // Tiles of the same size decode into a pooled bitmap instead of a new allocation
+            Bitmap reuse = pool.get(region.width(), region.height());
+            options.inBitmap = reuse;
+            Bitmap tile = null;
+            try {
+                // Decoding is serialized by the decoder, blurring overlaps with it
+                tile = decoder.decodeRegion(region, options);
+            } catch (IllegalArgumentException e) {
+                // The decoder could not reuse the bitmap, e.g. its size or config does not fit
+                options.inBitmap = null;
+                tile = decoder.decodeRegion(region, options);
+            } finally {
+                if (tile != reuse) pool.put(reuse);
+            }
+            return tile;
+        }, sink);
+    }
+
+    private void run(int width, int height, TileSource source, TileSink sink) {
+        if (width <= 0 || height <= 0) return;
+        BlurRuntime.loadNativeLibrary();
+
+        int halo = getHalo(radius, rounds);
+        int columns = (width + tileSize - 1) / tileSize;
+        int rows = (height + tileSize - 1) / tileSize;
+        long tileBytes = 4L * (tileSize + 2 * halo) * (tileSize + 2 * halo);
+        BitmapPool pool = new BitmapPool(tileBytes * BlurRuntime.getThreadCount());
+
+        // The first failure stops the remaining tiles, it is rethrown once every stripe has returned
+        AtomicInteger generation = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try {
+            BlurScheduler.run(columns * rows, (count, index) -> {
+                try {
+                    blurTile(width, height, columns, halo, index, source, sink, pool);
+                } catch (RuntimeException | Error e) {
+                    if (failure.compareAndSet(null, e)) generation.incrementAndGet();
+                }
+            }, generation, 0);
+        } finally {
+            pool.clear();
+        }
+
+        Throwable error = failure.get();
+        if (error instanceof RuntimeException) throw (RuntimeException) error;
+        if (error instanceof Error) throw (Error) error;
+    }
+
+    private void blurTile(int width, int height, int columns, int halo, int index,
+                          TileSource source, TileSink sink, BitmapPool pool) {
+        int left = (index % columns) * tileSize;
+        int top = (index / columns) * tileSize;
+        Rect inner = new Rect(left, top, Math.min(width, left + tileSize), Math.min(height, top + tileSize));
+        // The halo stops at the image edge, where the kernel clamps just like on the whole image
+        Rect region = new Rect(Math.max(0, inner.left - halo), Math.max(0, inner.top - halo),
+                Math.min(width, inner.right + halo), Math.min(height, inner.bottom + halo));
+
+        Bitmap tile = source.read(region, pool);
+        if (tile == null) return;
+        try {
+            BlurNative.blurBitmap(tile, radius, rounds);
+            Rect src = new Rect(inner);
+            src.offset(-region.left, -region.top);
+            sink.onTile(tile, src, inner.left, inner.top);
+        } finally {
+            pool.put(tile);
+        }
+    }
+
+    /**
+     * Width of the border a tile needs around its output part. The kernel of all rounds
+     * reaches radius x rounds pixels, but a stack blur of radius r has a variance below
+     * (r + 1)^2 / 6 per round, so beyond four standard deviations the weights are
+     * below one level of 8-bit color. Capping there keeps many rounds of a large
+     * radius from reading tiles several times the tile size
+     */
+    private static int getHalo(int radius, int rounds) {
+        double sigma = (radius + 1) * Math.sqrt(rounds / 6.0);
+        return (int) Math.min((long) radius * rounds, (long) Math.ceil(4 * sigma));
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025-2026 Donny Yale
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ===========================================
+ * Project: QmBlurView
+ * Created Date: 2025-10-21
+ * Author: Donny Yale
+ * GitHub: https://github.com/QmDeve/QmBlurView
+ * Website: https://blurview.qmdeve.com
+ * ===========================================
+ */
+
+package com.qmdeve.blurview;
+
+import android.graphics.Bitmap;
+import android.graphics.ImageFormat;
+import android.media.Image;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Blurs camera and video frames in their YUV planes, without converting them to RGB.
+ * Luma is blurred at full resolution and chroma at its own subsampled resolution,
+ * row and pixel strides of the planes are respected, so frames from
+ * {@link android.media.ImageReader} and NV21 preview buffers can be blurred in place.
+ * {@link #toBitmap} converts a frame once into a, typically downsampled, RGBA bitmap for display
+ */
+public final class YuvBlur {
+
+    // The maximum value of the blur radius
+    private static final int MAX_RADIUS = 100;
+
+    // The minimum value of the blur radius
+    private static final int MIN_RADIUS = 2;
+
+    private static final AtomicInteger GENERATION = new AtomicInteger();
+
+    private static native void planesToBitmap(Object y, int yOffset, int yRowStride,
+                                              Object u, int uOffset,
+                                              Object v, int vOffset,
+                                              int uvRowStride, int uvPixelStride,
+                                              int width, int height, Object bitmap);
+
+    private YuvBlur() {
+    }
+
+    /**
+     * Cancel the YUV blurs currently running on any thread,
+     * they stop at the next stripe and leave their planes partially blurred
+     */
+    public static void cancel() {
+        GENERATION.incrementAndGet();
+    }
+
+    /**
+     * Blur a YUV_420_888 image in place
+     * @param image Writable image, e.g. from an ImageWriter or a camera ImageReader
+     * @param radius Blur radius of the luma plane (2-100)
+     * @param rounds Number of blur iterations (1-15)
+     */
+    public static void blur(@NonNull Image image, float radius, int rounds) {
+        checkFormat(image);
+        Image.Plane[] planes = image.getPlanes();
+        blur(planes[0].getBuffer(), planes[0].getRowStride(),
+                planes[1].getBuffer(), planes[2].getBuffer(),
+                planes[1].getRowStride(), planes[1].getPixelStride(),
+                image.getWidth(), image.getHeight(), radius, rounds);
+    }
+
+    /**
+     * Blur YUV 4:2:0 planes in place, each plane starts at the position of its buffer
+     * @param y Direct buffer of the luma plane
+     * @param yRowStride Row stride of the luma plane
+     * @param u Direct buffer of the U plane
+     * @param v Direct buffer of the V plane
+     * @param uvRowStride Row stride of the chroma planes
+     * @param uvPixelStride Pixel stride of the chroma planes, 2 when they are interleaved
+     * @param width Frame width
+     * @param height Frame height
+     * @param radius Blur radius of the luma plane (2-100)
+     * @param rounds Number of blur iterations (1-15)
+     */
+    public static void blur(@NonNull ByteBuffer y, int yRowStride,
+                            @NonNull ByteBuffer u, @NonNull ByteBuffer v,
+                            int uvRowStride, int uvPixelStride,
+                            int width, int height, float radius, int rounds) {
+        checkDirect(y);
+        checkDirect(u);
+        checkDirect(v);
+        checkPlanes(y, yRowStride, u, v, uvRowStride, uvPixelStride, width, height);
+        int chromaWidth = (width + 1) / 2;
+        int chromaHeight = (height + 1) / 2;
+        int r = clamp(radius);
+        int chromaRadius = Math.max(1, r / 2);
+
+        BlurRuntime.loadNativeLibrary();
+        int expected = GENERATION.get();
+        for (int i = 0; i < Math.max(1, Math.min(15, rounds)); i++) {
+            // Interleaved chroma is blurred as two planes with a pixel stride of 2
+            if (!blurPlane(y, y.position(), width, height, yRowStride, 1, 1, r, expected)
+                    || !blurPlane(u, u.position(), chromaWidth, chromaHeight, uvRowStride, uvPixelStride, 1, chromaRadius, expected)
+                    || !blurPlane(v, v.position(), chromaWidth, chromaHeight, uvRowStride, uvPixelStride, 1, chromaRadius, expected)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Blur an NV21 buffer, as delivered by camera preview callbacks, in place
+     * @param nv21 Frame data, luma followed by interleaved V and U
+     * @param width Frame width
+     * @param height Frame height
+     * @param radius Blur radius of the luma plane (2-100)
+     * @param rounds Number of blur iterations (1-15)
+     */
+    public static void blurNv21(@NonNull byte[] nv21, int width, int height, float radius, int rounds) {
+        checkNv21(nv21, width, height);
+        int chromaWidth = (width + 1) / 2;
+        int chromaHeight = (height + 1) / 2;
+        int r = clamp(radius);
+        int chromaRadius = Math.max(1, r / 2);
+
+        BlurRuntime.loadNativeLibrary();
+        int expected = GENERATION.get();
+        for (int i = 0; i < Math.max(1, Math.min(15, rounds)); i++) {
+            // V and U share their pairs, both are blurred in one walk over the plane
+            if (!blurPlane(nv21, 0, width, height, width, 1, 1, r, expected)
+                    || !blurPlane(nv21, width * height, chromaWidth, chromaHeight, chromaWidth * 2, 2, 2, chromaRadius, expected)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Convert a YUV_420_888 image into an RGBA bitmap of any size,
+     * pick a small bitmap to pay for the conversion only at display resolution
+     * @param image Source image
+     * @param output ARGB_8888 bitmap, the frame is scaled to its size
+     */
+    public static void toBitmap(@NonNull Image image, @NonNull Bitmap output) {
+        checkFormat(image);
+        Image.Plane[] planes = image.getPlanes();
+        checkPlanes(planes[0].getBuffer(), planes[0].getRowStride(),
+                planes[1].getBuffer(), planes[2].getBuffer(),
+                planes[1].getRowStride(), planes[1].getPixelStride(),
+                image.getWidth(), image.getHeight());
+        BlurRuntime.loadNativeLibrary();
+        planesToBitmap(planes[0].getBuffer(), planes[0].getBuffer().position(), planes[0].getRowStride(),
+                planes[1].getBuffer(), planes[1].getBuffer().position(),
+                planes[2].getBuffer(), planes[2].getBuffer().position(),
+                planes[1].getRowStride(), planes[1].getPixelStride(),
+                image.getWidth(), image.getHeight(), output);
+    }
+
+    /**
+     * Convert an NV21 buffer into an RGBA bitmap of any size
+     * @param nv21 Frame data
+     * @param width Frame width
+     * @param height Frame height
+     * @param output ARGB_8888 bitmap, the frame is scaled to its size
+     */
+    public static void nv21ToBitmap(@NonNull byte[] nv21, int width, int height, @NonNull Bitmap output) {
+        checkNv21(nv21, width, height);
+        int chroma = width * height;
+        BlurRuntime.loadNativeLibrary();
+        planesToBitmap(nv21, 0, width, nv21, chroma + 1, nv21, chroma,
+                ((width + 1) / 2) * 2, 2, width, height, output);
+    }
+
+    private static boolean blurPlane(Object buffer, int offset, int width, int height,
+                                     int rowStride, int pixelStride, int channels, int radius, int expected) {
+        int stripes = BlurScheduler.getStripeCount(width, height);
+        for (int round = 1; round <= 2; round++) {
+            final int pass = round;
+            if (!BlurScheduler.run(stripes, (count, index) -> BlurNative.blurBuffer(buffer, offset, width, height,
+                    rowStride, pixelStride, channels, radius, count, index, pass), GENERATION, expected)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void checkFormat(Image image) {
+        if (image.getFormat() != ImageFormat.YUV_420_888) {
+            throw new IllegalArgumentException("Image format is not YUV_420_888");
+        }
+    }
+
+    private static void checkDirect(ByteBuffer buffer) {
+        if (!buffer.isDirect() || buffer.isReadOnly()) {
+            throw new IllegalArgumentException("Planes must be writable direct buffers");
+        }
+    }
+
+    private static void checkPlanes(ByteBuffer y, int yRowStride, ByteBuffer u, ByteBuffer v,
+                                    int uvRowStride, int uvPixelStride, int width, int height) {
+        checkSize(width, height);
+        int chromaWidth = (width + 1) / 2;
+        int chromaHeight = (height + 1) / 2;
+        checkPlane("Y", y.remaining(), yRowStride, 1, width, height);
+        checkPlane("U", u.remaining(), uvRowStride, uvPixelStride, chromaWidth, chromaHeight);
+        checkPlane("V", v.remaining(), uvRowStride, uvPixelStride, chromaWidth, chromaHeight);
+    }
+
+    // The native code walks the plane from the buffer position, the last pixel must lie before its limit
+    private static void checkPlane(String name, int remaining, int rowStride, int pixelStride, int width, int height) {
+        long rowBytes = (long) pixelStride * (width - 1) + 1;
+        if (pixelStride <= 0 || rowStride < rowBytes) {
+            throw new IllegalArgumentException(name + " plane strides do not fit the frame width");
+        }
+        if ((long) rowStride * (height - 1) + rowBytes > remaining) {
+            throw new IllegalArgumentException(name + " plane is too small for the frame size and strides");
+        }
+    }
+
+    private static void checkNv21(byte[] nv21, int width, int height) {
+        checkSize(width, height);
+        // Luma plus one interleaved V and U pair per 2x2 block, odd sizes round up
+        long size = (long) width * height + 2L * ((width + 1) / 2) * ((height + 1) / 2);
+        if (nv21.length < size) {
+            throw new IllegalArgumentException("NV21 buffer is too small for the frame size");
+        }
+    }
+
+    private static void checkSize(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Frame size must be positive");
+        }
+    }
+
+    private static int clamp(float radius) {
+        return (int) Math.max(MIN_RADIUS, Math.min(MAX_RADIUS, radius));
+    }
+}
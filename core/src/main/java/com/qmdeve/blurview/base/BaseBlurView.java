@@ -41,28 +41,36 @@ import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.Rect;
 import android.graphics.RectF;
-import android.graphics.drawable.BitmapDrawable;
-import android.graphics.drawable.Drawable;
+import android.graphics.SurfaceTexture;
 import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.PixelCopy;
 import android.view.SurfaceView;
 import android.view.TextureView;
 import android.view.View;
-import android.view.ViewGroup;
 import android.view.ViewTreeObserver;
-import android.widget.ImageView;
 
 import androidx.annotation.NonNull;
+import androidx.core.view.ScrollingView;
 
 import com.qmdeve.blurview.Blur;
+import com.qmdeve.blurview.BlurCache;
+import com.qmdeve.blurview.BlurEffects;
+import com.qmdeve.blurview.BlurMemoryBudget;
 import com.qmdeve.blurview.BlurNative;
+import com.qmdeve.blurview.BlurQualityController;
+import com.qmdeve.blurview.BlurRuntime;
+import com.qmdeve.blurview.util.BitmapPool;
+import com.qmdeve.blurview.util.HardwareBitmapShadows;
 import com.qmdeve.blurview.util.Utils;
 
+import java.lang.ref.WeakReference;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
@@ -70,10 +78,24 @@ import java.util.WeakHashMap;
 public abstract class BaseBlurView extends View {
     private static final String TAG = "BaseBlurView";
 
+    // Default SurfaceView capture rate in Hz
+    private static final int DEFAULT_SURFACE_CAPTURE_RATE = 30;
+
+    // Default scroll speed of the container above which captures are thinned out, in dp per second
+    private static final float DEFAULT_SCROLL_VELOCITY_THRESHOLD = 1000f;
+
+    // Only every n-th frame is captured and blurred during a fast scroll
+    private static final int SCROLL_CAPTURE_INTERVAL = 3;
+
+    // Time without scrolling after which full quality is restored
+    private static final long SCROLL_SETTLE_MS = 120;
+
     protected int mOverlayColor;
     protected float mBlurRadius;
     protected float mDownsampleFactor = 0f;
     protected final Blur mBlur;
+    // Cancels the blurs of this view only, other users of the blur are left running
+    protected final BlurNative.CancellationToken mBlurCancellation = new BlurNative.CancellationToken();
     protected boolean mDirty = true;
     protected Bitmap mBitmapToBlur;
     public Bitmap mBlurredBitmap;
@@ -88,234 +110,272 @@ public abstract class BaseBlurView extends View {
     public final RectF mClipRect = new RectF();
     public final Path mG3Path = new Path();
 
-    private final Map<SurfaceView, Bitmap> mSurfaceViewBitmaps = new WeakHashMap<>();
-    private final Map<SurfaceView, Boolean> mPendingPixelCopies = new WeakHashMap<>();
+    // Downsampled capture buffers shared by all blur views and view groups
+    static final BitmapPool CAPTURE_POOL = new BitmapPool(4 * 1024 * 1024);
+
+    private final Map<TextureView, TextureCapture> mTextureCaptures = new WeakHashMap<>();
+    private final RectF mTextureRect = new RectF();
+    private final Paint mCapturePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Map<SurfaceView, SurfaceCapture> mSurfaceCaptures = new WeakHashMap<>();
+    private final int[] mLocVideo = new int[2];
+    private VideoSurfaceIndex mVideoSurfaceIndex;
+    private final Rect mVisibleRect = new Rect();
+    private boolean mBlurGated = false;
+    private boolean mPauseWithoutFocus = false;
     private final Set<SurfaceView> mConfiguredSurfaceViews = Collections.newSetFromMap(new WeakHashMap<>());
     private final Handler mHandler = new Handler(Looper.getMainLooper());
-    private android.os.HandlerThread mPixelCopyThread;
-    private Handler mPixelCopyHandler;
 
     private boolean mFirstDraw = true;
     private boolean mForceRedraw = false;
     private boolean mSurfaceViewWarningLogged = false;
     private boolean mUsePixelCopyFallback = false;
     private boolean mIsPixelCopyPending = false;
+    private float mBudgetDownsample = 1f;
+    private final BlurCache.FrameGate mCacheGate = new BlurCache.FrameGate();
+    private Bitmap mBlurMask;
+    private Bitmap mBlurMaskCopy;
+    private boolean mFuseOverlay = false;
+    private float mSaturation = 1f;
+    private float mNoise = 0f;
+    private boolean mHighQualityUpsample = false;
+    private Bitmap mUpsampledBitmap;
+    private final Paint mUpsamplePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final BlurQualityController mQuality = new BlurQualityController();
+    private View mScrollContainer;
+    private float mScrollVelocityThreshold;
+    private boolean mScrollFast = false;
+    private int mScrollSkippedFrames = 0;
+    private int mLastScrollOffset;
+    private long mLastScrollTime;
+    private long mSurfaceCaptureIntervalMs = 1000 / DEFAULT_SURFACE_CAPTURE_RATE;
+
+    private final BlurMemoryBudget.Client mBudgetClient = new BlurMemoryBudget.Client() {
+        @Override
+        public boolean isOnScreen() {
+            return isAttachedToWindow() && isShown();
+        }
+
+        @Override
+        public void onTrimBlurMemory() {
+            releaseBitmap();
+            mForceRedraw = true;
+            if (isOnScreen()) invalidate();
+        }
+    };
+
+    private final ViewTreeObserver.OnScrollChangedListener mScrollListener = this::onContainerScrolled;
+
+    // One final blur at full quality once the container stopped scrolling fast
+    private final Runnable mScrollSettled = () -> {
+        if (!mScrollFast) return;
+        mScrollFast = false;
+        mScrollSkippedFrames = 0;
+        mForceRedraw = true;
+        invalidate();
+    };
+
+    // Capture again once the software shadow of a skipped hardware bitmap is available
+    private final Runnable mShadowReady = () -> {
+        mForceRedraw = true;
+        invalidate();
+    };
+
+    /**
+     * Last frame read back from a TextureView
+     */
+    private static final class TextureCapture {
+        Bitmap bitmap;
+        // Weak, the texture references its TextureView, the key of the capture map
+        WeakReference<SurfaceTexture> texture;
+        long timestamp = -1;
+    }
+
+    /**
+     * Last PixelCopy snapshot of a SurfaceView
+     */
+    private static final class SurfaceCapture {
+        Bitmap bitmap;
+        boolean pending;
+        long lastRequest;
+    }
 
     public BaseBlurView(Context context, AttributeSet attrs) {
         super(context, attrs);
         mBlur = new BlurNative();
-        initPixelCopyThread();
+        mScrollVelocityThreshold = Utils.dp2px(getResources(), DEFAULT_SCROLL_VELOCITY_THRESHOLD);
         initAttributes(context, attrs);
     }
 
-    private void initPixelCopyThread() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-            mPixelCopyThread = new android.os.HandlerThread("BlurViewPixelCopy");
-            mPixelCopyThread.start();
-            mPixelCopyHandler = new Handler(mPixelCopyThread.getLooper());
-        }
-    }
-
     protected void initAttributes(Context context, AttributeSet attrs) {}
 
-    /**
-     * Ensure bitmap is software-compatible for blur processing.
-     * Converts hardware bitmaps to software bitmaps to prevent
-     * "Software rendering doesn't support hardware bitmaps" error.
-     *
-     * @param bitmap The bitmap to check
-     * @return Software-compatible bitmap
-     */
-    private Bitmap ensureSoftwareBitmap(Bitmap bitmap) {
-        if (bitmap == null) {
-            return null;
+    private void drawTextureViews(Canvas canvas, int[] locDecor) {
+        List<TextureView> textureViews = mVideoSurfaceIndex.getTextureViews();
+        for (int i = 0; i < textureViews.size(); i++) {
+            drawTextureView(textureViews.get(i), canvas, locDecor);
         }
+    }
 
-        // Hardware bitmaps were introduced in Android O (API 26)
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            if (bitmap.getConfig() == Bitmap.Config.HARDWARE) {
-                Log.d(TAG, "Converting hardware bitmap to software bitmap for blur processing");
-                try {
-                    return bitmap.copy(Bitmap.Config.ARGB_8888, false);
-                } catch (Exception e) {
-                    Log.e(TAG, "Failed to convert hardware bitmap: " + e.getMessage());
-                    return bitmap; // Return original if copy fails
-                }
-            }
-        }
+    private void drawTextureView(TextureView textureView, Canvas canvas, int[] locDecor) {
+        if (textureView.isShown() && textureView.isAvailable()) {
+            int[] locTexture = mLocVideo;
+            textureView.getLocationOnScreen(locTexture);
 
-        return bitmap;
-    }
+            int left = locTexture[0] - locDecor[0];
+            int top = locTexture[1] - locDecor[1];
 
-    /**
-     * Recursively disable hardware bitmaps in a view hierarchy.
-     * This prevents "Software rendering doesn't support hardware bitmaps" errors
-     * when views are drawn onto software canvases for blur processing.
-     */
-    private void disableHardwareBitmapsInView(View view) {
-        if (view == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
-            return;
-        }
+            // Read the frame straight into a buffer at the capture scale
+            int width = Math.max(1, Math.round(textureView.getWidth() * mBitmapToBlur.getWidth() / (float) getWidth()));
+            int height = Math.max(1, Math.round(textureView.getHeight() * mBitmapToBlur.getHeight() / (float) getHeight()));
 
-        try {
-            // Handle ImageView specifically
-            if (view instanceof ImageView) {
-                ImageView imageView = (ImageView) view;
-                Drawable drawable = imageView.getDrawable();
-
-                if (drawable instanceof BitmapDrawable) {
-                    BitmapDrawable bitmapDrawable = (BitmapDrawable) drawable;
-                    Bitmap bitmap = bitmapDrawable.getBitmap();
-
-                    if (bitmap != null && bitmap.getConfig() == Bitmap.Config.HARDWARE) {
-                        Log.d(TAG, "Converting hardware bitmap in ImageView to software");
-                        Bitmap softwareBitmap = bitmap.copy(Bitmap.Config.ARGB_8888, false);
-                        if (softwareBitmap != null) {
-                            imageView.setImageBitmap(softwareBitmap);
-                        }
-                    }
-                }
+            TextureCapture capture = mTextureCaptures.get(textureView);
+            if (capture == null) {
+                capture = new TextureCapture();
+                mTextureCaptures.put(textureView, capture);
             }
 
-            // Recursively process children if it's a ViewGroup
-            if (view instanceof ViewGroup) {
-                ViewGroup viewGroup = (ViewGroup) view;
-                int childCount = viewGroup.getChildCount();
-                for (int i = 0; i < childCount; i++) {
-                    disableHardwareBitmapsInView(viewGroup.getChildAt(i));
-                }
+            if (capture.bitmap == null || capture.bitmap.getWidth() != width || capture.bitmap.getHeight() != height) {
+                CAPTURE_POOL.put(capture.bitmap);
+                capture.bitmap = CAPTURE_POOL.get(width, height);
+                capture.timestamp = -1;
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error disabling hardware bitmaps: " + e.getMessage());
+
+            // Skip the read back when the TextureView still shows the frame read last time.
+            // The timestamp of the latched frame is compared, the listener slot stays with the app.
+            // Producers that leave timestamps at 0 are read back every capture
+            SurfaceTexture texture = textureView.getSurfaceTexture();
+            long timestamp = texture != null ? texture.getTimestamp() : 0;
+            boolean sameTexture = capture.texture != null && capture.texture.get() == texture;
+            if (timestamp == 0 || !sameTexture || timestamp != capture.timestamp) {
+                textureView.getBitmap(capture.bitmap);
+                if (!sameTexture) capture.texture = new WeakReference<>(texture);
+                capture.timestamp = timestamp;
+            }
+
+            mTextureRect.set(left, top, left + textureView.getWidth(), top + textureView.getHeight());
+            canvas.drawBitmap(capture.bitmap, null, mTextureRect, mCapturePaint);
         }
     }
 
-    private void drawTextureViews(View view, Canvas canvas) {
-        if (view instanceof TextureView) {
-            TextureView textureView = (TextureView) view;
-            if (textureView.getVisibility() == View.VISIBLE && textureView.isAvailable()) {
-                int[] locDecor = new int[2];
-                mDecorView.getLocationOnScreen(locDecor);
-
-                int[] locTexture = new int[2];
-                textureView.getLocationOnScreen(locTexture);
+    private void releaseCaptures() {
+        for (TextureCapture capture : mTextureCaptures.values()) {
+            CAPTURE_POOL.put(capture.bitmap);
+        }
+        mTextureCaptures.clear();
 
-                int left = locTexture[0] - locDecor[0];
-                int top = locTexture[1] - locDecor[1];
+        // Pending copies still write into their own buffer and drop it when they land
+        for (SurfaceCapture capture : mSurfaceCaptures.values()) {
+            CAPTURE_POOL.put(capture.bitmap);
+            capture.bitmap = null;
+        }
+    }
 
-                Bitmap bitmap = textureView.getBitmap();
-                if (bitmap != null) {
-                    bitmap = ensureSoftwareBitmap(bitmap);
-                    canvas.save();
-                    canvas.translate(left, top);
-                    canvas.drawBitmap(bitmap, 0, 0, null);
-                    canvas.restore();
-                    bitmap.recycle();
-                }
-            }
-        } else if (view instanceof ViewGroup) {
-            ViewGroup group = (ViewGroup) view;
-            for (int i = 0; i < group.getChildCount(); i++) {
-                drawTextureViews(group.getChildAt(i), canvas);
-            }
+    private void drawSurfaceViews(Canvas canvas, int[] locDecor) {
+        List<SurfaceView> surfaceViews = mVideoSurfaceIndex.getSurfaceViews();
+        for (int i = 0; i < surfaceViews.size(); i++) {
+            drawSurfaceView(surfaceViews.get(i), canvas, locDecor);
         }
     }
 
-    private void drawSurfaceViews(View view, Canvas canvas) {
-        if (view instanceof SurfaceView) {
-            SurfaceView surfaceView = (SurfaceView) view;
-            if (surfaceView.getVisibility() == View.VISIBLE) {
-                // Automatically configure SurfaceView for proper z-ordering
-                if (!mConfiguredSurfaceViews.contains(surfaceView)) {
-                    try {
-                        surfaceView.setZOrderMediaOverlay(true);
-                        Log.i(TAG, "Automatically configured SurfaceView with setZOrderMediaOverlay(true) for proper blur rendering");
-                        mConfiguredSurfaceViews.add(surfaceView);
-                    } catch (Exception e) {
-                        Log.e(TAG, "Failed to auto-configure SurfaceView: " + e.getMessage());
-                    }
+    private void drawSurfaceView(SurfaceView surfaceView, Canvas canvas, int[] locDecor) {
+        if (surfaceView.isShown()) {
+            // Automatically configure SurfaceView for proper z-ordering
+            if (!mConfiguredSurfaceViews.contains(surfaceView)) {
+                try {
+                    surfaceView.setZOrderMediaOverlay(true);
+                    Log.i(TAG, "Automatically configured SurfaceView with setZOrderMediaOverlay(true) for proper blur rendering");
+                    mConfiguredSurfaceViews.add(surfaceView);
+                } catch (Exception e) {
+                    Log.e(TAG, "Failed to auto-configure SurfaceView: " + e.getMessage());
                 }
+            }
 
-                // Log helpful warning if SurfaceView blur might not work properly
-                if (!mSurfaceViewWarningLogged) {
-                    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
-                        Log.w(TAG, "SurfaceView blur requires Android 7.0+ (API 24). " +
-                                "Current API level: " + Build.VERSION.SDK_INT + ". " +
-                                "SurfaceView content will NOT be blurred. Consider using TextureView instead.");
-                    } else {
-                        Log.i(TAG, "SurfaceView detected and automatically configured for blur. " +
-                                "Note: There may be a slight lag (1-2 frames) due to asynchronous PixelCopy.");
-                    }
-                    mSurfaceViewWarningLogged = true;
+            // Log helpful warning if SurfaceView blur might not work properly
+            if (!mSurfaceViewWarningLogged) {
+                if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+                    Log.w(TAG, "SurfaceView blur requires Android 7.0+ (API 24). " +
+                            "Current API level: " + Build.VERSION.SDK_INT + ". " +
+                            "SurfaceView content will NOT be blurred. Consider using TextureView instead.");
+                } else {
+                    Log.i(TAG, "SurfaceView detected and automatically configured for blur. " +
+                            "Note: There may be a slight lag (1-2 frames) due to asynchronous PixelCopy.");
                 }
+                mSurfaceViewWarningLogged = true;
+            }
 
-                // Draw the last known bitmap if available
-                Bitmap cachedBitmap = mSurfaceViewBitmaps.get(surfaceView);
-                if (cachedBitmap != null && !cachedBitmap.isRecycled()) {
-                    int[] locDecor = new int[2];
-                    mDecorView.getLocationOnScreen(locDecor);
+            SurfaceCapture capture = mSurfaceCaptures.get(surfaceView);
+            if (capture == null) {
+                capture = new SurfaceCapture();
+                mSurfaceCaptures.put(surfaceView, capture);
+            }
 
-                    int[] locSurface = new int[2];
-                    surfaceView.getLocationOnScreen(locSurface);
+            // Draw the last known bitmap if available
+            if (capture.bitmap != null && !capture.bitmap.isRecycled()) {
+                int[] locSurface = mLocVideo;
+                surfaceView.getLocationOnScreen(locSurface);
 
-                    int left = locSurface[0] - locDecor[0];
-                    int top = locSurface[1] - locDecor[1];
+                int left = locSurface[0] - locDecor[0];
+                int top = locSurface[1] - locDecor[1];
 
-                    canvas.save();
-                    canvas.translate(left, top);
-                    canvas.drawBitmap(cachedBitmap, 0, 0, null);
-                    canvas.restore();
-                }
+                mTextureRect.set(left, top, left + surfaceView.getWidth(), top + surfaceView.getHeight());
+                canvas.drawBitmap(capture.bitmap, null, mTextureRect, mCapturePaint);
+            }
 
-                // Request a new snapshot if not already pending
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && !Boolean.TRUE.equals(mPendingPixelCopies.get(surfaceView))) {
-                    if (surfaceView.getWidth() > 0 && surfaceView.getHeight() > 0) {
-                        // Check if surface is valid before requesting PixelCopy
-                        if (surfaceView.getHolder().getSurface() != null && surfaceView.getHolder().getSurface().isValid()) {
-                            final Bitmap bitmap = Bitmap.createBitmap(surfaceView.getWidth(), surfaceView.getHeight(), Bitmap.Config.ARGB_8888);
-                            mPendingPixelCopies.put(surfaceView, true);
-                            try {
-                                // Use dedicated handler for PixelCopy to avoid main thread contention
-                                Handler handler = mPixelCopyHandler != null ? mPixelCopyHandler : mHandler;
-                                PixelCopy.request(surfaceView, bitmap, copyResult -> {
-                                    // Callback runs on handler thread, post to main thread for UI updates
-                                    mHandler.post(() -> {
-                                        mPendingPixelCopies.put(surfaceView, false);
-                                        if (copyResult == PixelCopy.SUCCESS) {
-                                            Bitmap old = mSurfaceViewBitmaps.put(surfaceView, bitmap);
-                                            if (old != null) old.recycle(); // Recycle the old one
-                                            invalidate();
-                                        } else {
-                                            Log.w(TAG, "PixelCopy failed. Result: " + copyResult);
-                                            
-                                            // Retry on common transient errors
-                                            if (copyResult == PixelCopy.ERROR_SOURCE_NO_DATA || 
-                                                copyResult == PixelCopy.ERROR_UNKNOWN || 
-                                                copyResult == PixelCopy.ERROR_TIMEOUT) {
-                                                postInvalidateDelayed(100);
-                                            }
-                                            bitmap.recycle();
+            // Request a new snapshot if not already pending
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && !capture.pending) {
+                if (surfaceView.getWidth() > 0 && surfaceView.getHeight() > 0) {
+                    // Check if surface is valid before requesting PixelCopy
+                    if (surfaceView.getHolder().getSurface() != null && surfaceView.getHolder().getSurface().isValid()) {
+                        long now = SystemClock.uptimeMillis();
+                        long wait = capture.lastRequest + mSurfaceCaptureIntervalMs - now;
+                        if (wait > 0) {
+                            // Rate limited, come back when the next capture is due
+                            postInvalidateDelayed(wait);
+                            return;
+                        }
+
+                        // PixelCopy scales into the destination, so copy straight at the capture scale
+                        int width = Math.max(1, Math.round(surfaceView.getWidth() * mBitmapToBlur.getWidth() / (float) getWidth()));
+                        int height = Math.max(1, Math.round(surfaceView.getHeight() * mBitmapToBlur.getHeight() / (float) getHeight()));
+                        final Bitmap bitmap = CAPTURE_POOL.get(width, height);
+                        final SurfaceCapture target = capture;
+                        capture.pending = true;
+                        capture.lastRequest = now;
+                        try {
+                            // Use dedicated handler for PixelCopy to avoid main thread contention
+                            Handler handler = getPixelCopyHandler();
+                            PixelCopy.request(surfaceView, bitmap, copyResult -> {
+                                // Callback runs on handler thread, only the buffer swap happens on the main thread
+                                mHandler.post(() -> {
+                                    target.pending = false;
+                                    if (copyResult == PixelCopy.SUCCESS) {
+                                        CAPTURE_POOL.put(target.bitmap);
+                                        target.bitmap = bitmap;
+                                        invalidate();
+                                    } else {
+                                        Log.w(TAG, "PixelCopy failed. Result: " + copyResult);
+
+                                        // Retry on common transient errors
+                                        if (copyResult == PixelCopy.ERROR_SOURCE_NO_DATA ||
+                                            copyResult == PixelCopy.ERROR_UNKNOWN ||
+                                            copyResult == PixelCopy.ERROR_TIMEOUT) {
+                                            postInvalidateDelayed(100);
                                         }
-                                    });
-                                }, handler);
-                            } catch (IllegalArgumentException e) {
-                                Log.e(TAG, "PixelCopy request failed: " + e.getMessage() +
-                                        ". Make sure surfaceView.setZOrderMediaOverlay(true) is called.");
-                                mPendingPixelCopies.put(surfaceView, false);
-                                bitmap.recycle();
-                            }
-                        } else {
-                            // Surface not valid yet, try again later
-                            postInvalidateDelayed(100);
+                                        CAPTURE_POOL.put(bitmap);
+                                    }
+                                });
+                            }, handler);
+                        } catch (IllegalArgumentException e) {
+                            Log.e(TAG, "PixelCopy request failed: " + e.getMessage() +
+                                    ". Make sure surfaceView.setZOrderMediaOverlay(true) is called.");
+                            capture.pending = false;
+                            CAPTURE_POOL.put(bitmap);
                         }
+                    } else {
+                        // Surface not valid yet, try again later
+                        postInvalidateDelayed(100);
                     }
                 }
             }
-        } else if (view instanceof ViewGroup) {
-            ViewGroup group = (ViewGroup) view;
-            for (int i = 0; i < group.getChildCount(); i++) {
-                drawSurfaceViews(group.getChildAt(i), canvas);
-            }
         }
     }
 
@@ -328,6 +388,25 @@ public abstract class BaseBlurView extends View {
         }
     }
 
+    /**
+     * Pause capture and blur while the window has no focus, e.g. behind a fullscreen dialog.
+     * Off by default, an unfocused window is still visible in multi-window mode,
+     * behind non-fullscreen dialogs and under popups
+     * @param pause Whether losing window focus pauses the blur
+     */
+    public void setPauseWithoutFocus(boolean pause) {
+        mPauseWithoutFocus = pause;
+        if (!pause && mBlurGated) invalidate();
+    }
+
+    /**
+     * Set the maximum rate SurfaceView content is captured at
+     * @param hz Captures per second, 0 or less removes the limit
+     */
+    public void setSurfaceCaptureRate(float hz) {
+        mSurfaceCaptureIntervalMs = hz > 0 ? (long) (1000 / hz) : 0;
+    }
+
     /**
      * Set the number of blur rounds (iterations) for BlurNative
      * More rounds = stronger blur effect
@@ -365,11 +444,249 @@ public abstract class BaseBlurView extends View {
     public void setOverlayColor(int color) {
         if (mOverlayColor != color) {
             mOverlayColor = color;
+            updateEffects();
             mForceRedraw = true;
             invalidate();
         }
     }
 
+    /**
+     * Apply the overlay color inside the final blur pass, to the low resolution pixels,
+     * so drawing the view is a single drawBitmap without an overlay fill
+     * @param fuse Whether the overlay is part of the blurred bitmap
+     */
+    public void setFuseOverlay(boolean fuse) {
+        if (mFuseOverlay != fuse) {
+            mFuseOverlay = fuse;
+            updateEffects();
+            invalidateBlur();
+        }
+    }
+
+    public boolean isFuseOverlay() {
+        return mFuseOverlay;
+    }
+
+    /**
+     * Saturation of the blur, applied by the final blur pass
+     * @param saturation 1 = unchanged, above 1 for a vibrancy look
+     */
+    public void setSaturation(float saturation) {
+        if (mSaturation != saturation && saturation >= 0) {
+            mSaturation = saturation;
+            updateEffects();
+            invalidateBlur();
+        }
+    }
+
+    public float getSaturation() {
+        return mSaturation;
+    }
+
+    /**
+     * Grain over the blur, applied by the final blur pass
+     * @param noise Strength (0-1), 0 for none
+     */
+    public void setNoise(float noise) {
+        if (mNoise != noise && noise >= 0) {
+            mNoise = noise;
+            updateEffects();
+            invalidateBlur();
+        }
+    }
+
+    public float getNoise() {
+        return mNoise;
+    }
+
+    private void updateEffects() {
+        if (mBlur instanceof BlurNative) {
+            ((BlurNative) mBlur).setEffects(new BlurEffects(mFuseOverlay ? mOverlayColor : 0, mSaturation, mNoise));
+        }
+    }
+
+    /**
+     * Make the blur strength follow a mask, for tilt-shift or spotlight effects.
+     * The mask is stretched over the view, opaque pixels get the full blur radius
+     * and transparent ones stay sharp. The mask is copied, set it again after changing it
+     * @param mask ALPHA_8 bitmap, null for a uniform blur
+     */
+    public void setBlurMask(Bitmap mask) {
+        if (mask != null && mask.getConfig() != Bitmap.Config.ALPHA_8) {
+            throw new IllegalArgumentException("Mask must be an ALPHA_8 bitmap");
+        }
+        if (mBlurMask != mask || mask != null) {
+            mBlurMask = mask;
+            // Blurs on other threads read a copy, the caller may recycle or change its mask
+            mBlurMaskCopy = mask != null ? mask.copy(Bitmap.Config.ALPHA_8, false) : null;
+            invalidateBlur();
+        }
+    }
+
+    public Bitmap getBlurMask() {
+        return mBlurMask;
+    }
+
+    /**
+     * Watch a scrolling container under this view, e.g. the list under a title bar.
+     * While it scrolls faster than the threshold, when blur detail cannot be seen anyway,
+     * only every third frame is captured and blurred, and one final blur at full quality
+     * follows once the scrolling settles
+     * @param container RecyclerView, ScrollView or any other scrolling view, null to stop watching
+     */
+    public void setScrollingContainer(View container) {
+        if (mScrollContainer == container) return;
+        if (mDecorView != null && mScrollContainer != null) {
+            mDecorView.getViewTreeObserver().removeOnScrollChangedListener(mScrollListener);
+        }
+        mScrollContainer = container;
+        mLastScrollTime = 0;
+        mScrollSettled.run();
+        if (mDecorView != null && container != null) {
+            mLastScrollOffset = getScrollOffset(container);
+            mDecorView.getViewTreeObserver().addOnScrollChangedListener(mScrollListener);
+        }
+    }
+
+    public View getScrollingContainer() {
+        return mScrollContainer;
+    }
+
+    /**
+     * Set the scroll speed above which captures are thinned out
+     * @param dpPerSecond Velocity threshold in dp per second
+     */
+    public void setScrollVelocityThreshold(float dpPerSecond) {
+        mScrollVelocityThreshold = Utils.dp2px(getResources(), Math.max(0f, dpPerSecond));
+    }
+
+    private void onContainerScrolled() {
+        View container = mScrollContainer;
+        if (container == null) return;
+
+        int offset = getScrollOffset(container);
+        long now = SystemClock.uptimeMillis();
+        int delta = Math.abs(offset - mLastScrollOffset);
+        long elapsed = Math.max(1, now - mLastScrollTime);
+        mLastScrollOffset = offset;
+        mLastScrollTime = now;
+        if (delta == 0) return;
+
+        float velocity = delta * 1000f / elapsed;
+        if (velocity > mScrollVelocityThreshold) {
+            mScrollFast = true;
+        } else if (mScrollFast && velocity < mScrollVelocityThreshold / 2) {
+            // Slowed down well below the threshold, the final blur does not wait for a full stop
+            mHandler.removeCallbacks(mScrollSettled);
+            mScrollSettled.run();
+            return;
+        }
+        if (mScrollFast) {
+            mHandler.removeCallbacks(mScrollSettled);
+            mHandler.postDelayed(mScrollSettled, SCROLL_SETTLE_MS);
+        }
+    }
+
+    private static int getScrollOffset(View container) {
+        if (container instanceof ScrollingView) {
+            ScrollingView scrolling = (ScrollingView) container;
+            return scrolling.computeVerticalScrollOffset() + scrolling.computeHorizontalScrollOffset();
+        }
+        return container.getScrollY() + container.getScrollX();
+    }
+
+    /**
+     * Choose how the view trades blur quality for frame time
+     * @param policy One of the BlurQualityController POLICY_ constants
+     */
+    public void setQualityPolicy(int policy) {
+        if (mQuality.getPolicy() != policy) {
+            mQuality.setPolicy(policy);
+            mDirty = true;
+            invalidateBlur();
+        }
+    }
+
+    public int getQualityPolicy() {
+        return mQuality.getPolicy();
+    }
+
+    /**
+     * Get the controller that adapts the quality of this view, e.g. to change its frame budget
+     * @return Quality controller
+     */
+    public BlurQualityController getQualityController() {
+        return mQuality;
+    }
+
+    /**
+     * Scale each new blur natively with a bicubic filter into a cached bitmap of half the
+     * view size, which is then drawn filtered. Keeps large downsample factors from looking blocky
+     * @param enabled Whether to upsample the blurred bitmap
+     */
+    public void setHighQualityUpsample(boolean enabled) {
+        if (mHighQualityUpsample != enabled) {
+            mHighQualityUpsample = enabled;
+            if (!enabled && mUpsampledBitmap != null) {
+                mUpsampledBitmap.recycle();
+                mUpsampledBitmap = null;
+            }
+            invalidateBlur();
+        }
+    }
+
+    public boolean isHighQualityUpsample() {
+        return mHighQualityUpsample;
+    }
+
+    // Bytes of the working bitmaps, as recorded with the memory budget
+    private long getHeldBytes() {
+        long bytes = 0;
+        if (mBitmapToBlur != null) bytes += mBitmapToBlur.getAllocationByteCount();
+        if (mBlurredBitmap != null) bytes += mBlurredBitmap.getAllocationByteCount();
+        if (mUpsampledBitmap != null) bytes += mUpsampledBitmap.getAllocationByteCount();
+        return bytes;
+    }
+
+    /**
+     * Upsample a newly produced blur, only when it is smaller than half the view
+     */
+    private void upsampleBlurredBitmap() {
+        Bitmap blurred = mBlurredBitmap;
+        int width = Math.max(1, getWidth() / 2);
+        int height = Math.max(1, getHeight() / 2);
+        if (!mHighQualityUpsample || blurred == null || !(mBlur instanceof BlurNative)
+                || blurred.getWidth() >= width || blurred.getHeight() >= height) {
+            if (mUpsampledBitmap != null) {
+                mUpsampledBitmap.recycle();
+                mUpsampledBitmap = null;
+            }
+            return;
+        }
+
+        if (mUpsampledBitmap == null
+                || mUpsampledBitmap.getWidth() != width
+                || mUpsampledBitmap.getHeight() != height) {
+            if (mUpsampledBitmap != null) mUpsampledBitmap.recycle();
+            try {
+                mUpsampledBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            } catch (OutOfMemoryError e) {
+                mUpsampledBitmap = null;
+                return;
+            }
+            if (mBitmapToBlur != null) BlurMemoryBudget.commit(mBudgetClient, getHeldBytes());
+        }
+        ((BlurNative) mBlur).upsample(blurred, mUpsampledBitmap);
+    }
+
+    /**
+     * Blur again on the next frame, for subclasses whose blur depends on their own state
+     */
+    protected void invalidateBlur() {
+        mForceRedraw = true;
+        invalidate();
+    }
+
     public void setCornerRadius(float radius) {
         if (mCornerRadius != radius && radius >= 0) {
             mCornerRadius = radius;
@@ -399,17 +716,29 @@ public abstract class BaseBlurView extends View {
             mBlurredBitmap.recycle();
             mBlurredBitmap = null;
         }
+        if (mUpsampledBitmap != null) {
+            mUpsampledBitmap.recycle();
+            mUpsampledBitmap = null;
+        }
         mBlurringCanvas = null;
+        BlurMemoryBudget.release(mBudgetClient);
     }
 
     public void release() {
         releaseBitmap();
+        releaseCaptures();
+        mBudgetDownsample = 1f;
+        mBlurCancellation.cancel();
         mBlur.release();
-        if (mPixelCopyThread != null) {
-            mPixelCopyThread.quitSafely();
-            mPixelCopyThread = null;
-            mPixelCopyHandler = null;
-        }
+    }
+
+    /**
+     * Get the handler PixelCopy callbacks are delivered on
+     * @return The shared PixelCopy handler, or the main thread handler if unavailable
+     */
+    private Handler getPixelCopyHandler() {
+        Handler handler = BlurRuntime.getPixelCopyHandler();
+        return handler != null ? handler : mHandler;
     }
 
     protected boolean prepare() {
@@ -426,12 +755,25 @@ public abstract class BaseBlurView extends View {
             radius = 25;
         }
 
+        // A coarser buffer picked by the quality controller keeps the visual blur strength
+        float qualityDownsample = mQuality.getDownsampleMultiplier();
+        downsampleFactor *= qualityDownsample;
+        radius /= qualityDownsample;
+
         int width = getWidth();
         int height = getHeight();
         if (width == 0 || height == 0) return false;
 
-        int scaledWidth = Math.max(1, Math.round(width / downsampleFactor));
-        int scaledHeight = Math.max(1, Math.round(height / downsampleFactor));
+        // Two ARGB_8888 working bitmaps at the requested quality, the budget may ask for a coarser one
+        long bytes = 8L * Math.max(1, Math.round(width / downsampleFactor)) * Math.max(1, Math.round(height / downsampleFactor));
+
+        // Other views may have freed memory since the budget handed out a coarser buffer
+        if (mBudgetDownsample > 1f && BlurMemoryBudget.fits(mBudgetClient, bytes)) {
+            mBudgetDownsample = 1f;
+        }
+
+        int scaledWidth = Math.max(1, Math.round(width / (downsampleFactor * mBudgetDownsample)));
+        int scaledHeight = Math.max(1, Math.round(height / (downsampleFactor * mBudgetDownsample)));
 
         boolean dirty = mDirty;
 
@@ -441,20 +783,28 @@ public abstract class BaseBlurView extends View {
             dirty = true;
             releaseBitmap();
 
+            mBudgetDownsample = BlurMemoryBudget.reserve(mBudgetClient, bytes);
+            scaledWidth = Math.max(1, Math.round(width / (downsampleFactor * mBudgetDownsample)));
+            scaledHeight = Math.max(1, Math.round(height / (downsampleFactor * mBudgetDownsample)));
+
             try {
                 mBitmapToBlur = Bitmap.createBitmap(scaledWidth, scaledHeight, Bitmap.Config.ARGB_8888);
-                mBlurringCanvas = new Canvas(mBitmapToBlur);
+                mBlurringCanvas = new ShadowCanvas(mBitmapToBlur, mShadowReady);
                 mBlurredBitmap = Bitmap.createBitmap(scaledWidth, scaledHeight, Bitmap.Config.ARGB_8888);
 
                 // Ensure software bitmaps for compatibility
                 mBitmapToBlur = Utils.ensureSoftwareBitmap(mBitmapToBlur);
                 mBlurredBitmap = Utils.ensureSoftwareBitmap(mBlurredBitmap);
+                BlurMemoryBudget.commit(mBudgetClient, mBitmapToBlur.getAllocationByteCount() + mBlurredBitmap.getAllocationByteCount());
             } catch (OutOfMemoryError e) {
                 release();
                 return false;
             }
         }
 
+        // Keep the visual blur strength when the budget forces a coarser buffer
+        radius /= mBudgetDownsample;
+
         if (dirty && mBlur.prepare(mBitmapToBlur, radius)) {
             mDirty = false;
         }
@@ -463,10 +813,113 @@ public abstract class BaseBlurView extends View {
     }
 
     protected void blur(Bitmap input, Bitmap output) {
+        runBlurJob(createBlurJob(output.getWidth()), input, output);
+    }
+
+    /**
+     * A blur with its settings captured on the main thread. The PixelCopy fallback blurs
+     * on another thread while setters or release may run, so a job only reads its own fields
+     */
+    protected interface BlurJob {
+        /**
+         * @param input Software source bitmap
+         * @param output Destination bitmap
+         * @return false if the blur was cancelled, output is then incomplete
+         */
+        boolean blur(Bitmap input, Bitmap output);
+    }
+
+    /**
+     * Capture the current blur settings, called on the main thread.
+     * Subclasses with a blur of their own return a job holding copies of their settings
+     * @param outputWidth Width of the bitmaps the job blurs
+     * @return Job that may run on any thread
+     */
+    protected BlurJob createBlurJob(int outputWidth) {
+        if (!(mBlur instanceof BlurNative)) {
+            Blur blur = mBlur;
+            return (input, output) -> {
+                blur.blur(input, output);
+                return true;
+            };
+        }
+        BlurNative blur = (BlurNative) mBlur;
+        int rounds = mQuality.getRounds(getBlurRounds());
+        Bitmap mask = getWidth() > 0 ? mBlurMaskCopy : null;
+        float maskRadius = getWidth() > 0 ? mBlurRadius * outputWidth / getWidth() : 0f;
+        float downsample = outputWidth > 0 ? (float) getWidth() / outputWidth : 1f;
+        return new BlurParams(blur, blur.getRadius(), rounds, blur.getEffects(), mask, maskRadius,
+                mBlurRadius, downsample, mCacheGate, mBlurCancellation);
+    }
+
+    /**
+     * Immutable settings of one blur of a view
+     */
+    static final class BlurParams implements BlurJob {
+        private final BlurNative blur;
+        private final float radius;
+        private final int rounds;
+        private final BlurEffects effects;
+        private final Bitmap mask;
+        private final float maskRadius;
+        private final float cacheRadius;
+        private final float downsample;
+        private final BlurCache.FrameGate cacheGate;
+        private final BlurNative.CancellationToken token;
+
+        /**
+         * @param blur Blur to run, only its thread-safe per-call methods are used
+         * @param radius Blur radius in pixels of the blurred bitmap
+         * @param rounds Blur rounds
+         * @param effects Effects of the final pass
+         * @param mask Private copy of the mask, null for a uniform blur
+         * @param maskRadius Blur radius where the mask is opaque
+         * @param cacheRadius Blur radius in pixels of the view, part of the cache key
+         * @param downsample Downsample factor of the blurred bitmap, part of the cache key
+         * @param cacheGate Gate of the view deciding when a result is cached
+         * @param token Token of the view, cancels only its own blurs
+         */
+        BlurParams(BlurNative blur, float radius, int rounds, BlurEffects effects, Bitmap mask,
+                   float maskRadius, float cacheRadius, float downsample, BlurCache.FrameGate cacheGate,
+                   BlurNative.CancellationToken token) {
+            this.blur = blur;
+            this.radius = radius;
+            this.rounds = rounds;
+            this.effects = effects != null ? effects : BlurEffects.NONE;
+            this.mask = mask;
+            this.maskRadius = maskRadius;
+            this.cacheRadius = cacheRadius;
+            this.downsample = downsample;
+            this.cacheGate = cacheGate;
+            this.token = token;
+        }
+
+        @Override
+        public boolean blur(Bitmap input, Bitmap output) {
+            if (mask != null) {
+                // Not cached, the cache key does not cover the mask
+                return blur.blurMasked(input, output, mask, maskRadius, rounds, token);
+            }
+            if (!effects.isEmpty()) {
+                // Not cached, the cache key does not cover the effects
+                return blur.blur(input, output, radius, rounds, 0f, effects, token);
+            }
+            // A changing backdrop is never cached, skip hashing it
+            if (!cacheGate.isQuiet(input)) return blur.blur(input, output, radius, rounds, 0f, effects, token);
+            // A backdrop that did not change since it was cached skips the blur
+            BlurCache.Key key = BlurCache.key(input, cacheRadius, rounds, downsample);
+            if (BlurCache.getInto(key, output)) return true;
+            // A cancelled blur leaves a partial result, and a changing backdrop is not worth a copy
+            if (!blur.blur(input, output, radius, rounds, 0f, effects, token)) return false;
+            if (cacheGate.onFrame(key)) BlurCache.put(key, output);
+            return true;
+        }
+    }
+
+    static boolean runBlurJob(BlurJob job, Bitmap input, Bitmap output) {
         try {
             // Ensure input is software bitmap
-            Bitmap softwareInput = Utils.ensureSoftwareBitmap(input);
-            mBlur.blur(softwareInput, output);
+            return job.blur(Utils.ensureSoftwareBitmap(input), output);
         } catch (IllegalArgumentException e) {
             if (e.getMessage() != null &&
                     e.getMessage().contains("Software rendering doesn't support hardware bitmaps")) {
@@ -475,7 +928,7 @@ public abstract class BaseBlurView extends View {
                 Bitmap softwareInput = input.copy(Bitmap.Config.ARGB_8888, false);
                 Bitmap softwareOutput = output.copy(Bitmap.Config.ARGB_8888, false);
                 if (softwareInput != null && softwareOutput != null) {
-                    mBlur.blur(softwareInput, softwareOutput);
+                    return job.blur(softwareInput, softwareOutput);
                 } else {
                     throw new RuntimeException("Failed to convert hardware bitmaps for blur processing", e);
                 }
@@ -499,22 +952,52 @@ public abstract class BaseBlurView extends View {
 
         mIsPixelCopyPending = true;
 
+        // Copy and blur into buffers of our own, the main thread may reallocate the working bitmaps meanwhile
+        final int width = mBitmapToBlur.getWidth();
+        final int height = mBitmapToBlur.getHeight();
+        final Bitmap source = CAPTURE_POOL.get(width, height);
+        final Bitmap target = CAPTURE_POOL.get(width, height);
+        final BlurJob job = createBlurJob(width);
+
         try {
-            Handler handler = mPixelCopyHandler != null ? mPixelCopyHandler : mHandler;
+            Handler handler = getPixelCopyHandler();
             // PixelCopy.request(Window) is available since API 24, but we use O (26) check for safety regarding hardware bitmaps
-            PixelCopy.request(window, rect, mBitmapToBlur, copyResult -> {
+            PixelCopy.request(window, rect, source, copyResult -> {
+                // Blur on the PixelCopy thread, the main thread only swaps in the result
+                boolean blurred = false;
+                if (copyResult == PixelCopy.SUCCESS) {
+                    try {
+                        blurred = runBlurJob(job, source, target);
+                    } catch (RuntimeException e) {
+                        Log.e(TAG, "PixelCopy fallback blur failed: " + e.getMessage());
+                    }
+                } else {
+                    Log.w(TAG, "PixelCopy fallback failed: " + copyResult);
+                }
+
+                final boolean success = blurred;
                 mHandler.post(() -> {
                     mIsPixelCopyPending = false;
-                    if (copyResult == PixelCopy.SUCCESS) {
-                        blur(mBitmapToBlur, mBlurredBitmap);
+                    CAPTURE_POOL.put(source);
+                    if (success && mBlurredBitmap != null
+                            && mBlurredBitmap.getWidth() == width
+                            && mBlurredBitmap.getHeight() == height) {
+                        // The last display list may still draw the old bitmap, another view must not reuse it
+                        mBlurredBitmap.recycle();
+                        mBlurredBitmap = target;
+                        upsampleBlurredBitmap();
+                        // A pooled bitmap may be larger than the one it replaced
+                        BlurMemoryBudget.commit(mBudgetClient, getHeldBytes());
                         invalidate();
                     } else {
-                        Log.w(TAG, "PixelCopy fallback failed: " + copyResult);
+                        CAPTURE_POOL.put(target);
                     }
                 });
             }, handler);
         } catch (IllegalArgumentException e) {
             mIsPixelCopyPending = false;
+            CAPTURE_POOL.put(source);
+            CAPTURE_POOL.put(target);
             Log.e(TAG, "PixelCopy fallback exception: " + e.getMessage());
         }
     }
@@ -526,7 +1009,9 @@ public abstract class BaseBlurView extends View {
 
         if (!prepare()) return false;
 
+        BlurMemoryBudget.markDrawn(mBudgetClient);
         boolean redrawBitmap = mBlurredBitmap != old;
+        long start = System.nanoTime();
 
         if (mUsePixelCopyFallback && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             performPixelCopyBlur();
@@ -557,31 +1042,23 @@ public abstract class BaseBlurView extends View {
             } catch (IllegalArgumentException e) {
                 if (e.getMessage() != null &&
                         e.getMessage().contains("Software rendering doesn't support hardware bitmaps")) {
-                    Log.w(Utils.TAG, "Hardware bitmap detected during draw, converting and retrying");
-                    // Convert hardware bitmaps in the view hierarchy
-                    Utils.disableHardwareBitmapsInView(mDecorView);
-                    // Retry the draw
-                    try {
-                        mBlurringCanvas.restoreToCount(saveCount);
-                        saveCount = mBlurringCanvas.save();
-                        mBlurringCanvas.scale(scaleX, scaleY);
-                        mBlurringCanvas.translate(-offsetX, -offsetY);
-                        mDecorView.draw(mBlurringCanvas);
-                    } catch (Exception retryError) {
-                        Log.e(Utils.TAG, "Retry after hardware bitmap conversion failed: " + retryError.getMessage() + ". Switching to PixelCopy fallback.");
-                        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                            mUsePixelCopyFallback = true;
-                            performPixelCopyBlur();
-                            return false;
-                        }
+                    // A hardware bitmap reached the canvas outside drawBitmap (e.g. through a shader),
+                    // capture the window instead of converting the bitmaps of the application
+                    Log.w(Utils.TAG, "Hardware bitmap detected during draw. Switching to PixelCopy fallback.");
+                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                        mUsePixelCopyFallback = true;
+                        performPixelCopyBlur();
+                        return false;
                     }
                 } else {
                     throw e;
                 }
             }
 
-            drawTextureViews(mDecorView, mBlurringCanvas);
-            drawSurfaceViews(mDecorView, mBlurringCanvas);
+            if (mVideoSurfaceIndex != null) {
+                drawTextureViews(mBlurringCanvas, locDecor);
+                drawSurfaceViews(mBlurringCanvas, locDecor);
+            }
         } finally {
             mIsRendering = false;
             Utils.sIsGlobalCapturing = false;
@@ -596,12 +1073,40 @@ public abstract class BaseBlurView extends View {
         }
 
         blur(mBitmapToBlur, mBlurredBitmap);
+        upsampleBlurredBitmap();
+
+        if (mQuality.onFrame(System.nanoTime() - start)) {
+            // Picked up by prepare on the next frame
+            mDirty = true;
+            mForceRedraw = true;
+        }
 
         return redrawBitmap || mDifferentRoot || mForceRedraw;
     }
 
+    /**
+     * Gate capture and blur on actual visibility.
+     * A gated view does no work at all and resumes with a single catch-up blur
+     * @return Whether capture and blur should run for this frame
+     */
+    private boolean shouldCapture() {
+        if (!Utils.isBlurVisible(this, mVisibleRect, mPauseWithoutFocus && mBlurredBitmap != null)) {
+            mBlurGated = true;
+            return false;
+        }
+        if (mBlurGated) {
+            mBlurGated = false;
+            mForceRedraw = true;
+        }
+        return true;
+    }
+
     public final ViewTreeObserver.OnPreDrawListener preDrawListener = () -> {
-        if (!isShown()) return true;
+        if (!shouldCapture()) return true;
+
+        // A fast scroll only shows every few blurs, the frames in between keep the last one
+        if (mScrollFast && ++mScrollSkippedFrames < SCROLL_CAPTURE_INTERVAL) return true;
+        mScrollSkippedFrames = 0;
 
         if (performBlurSync()) {
             postInvalidateOnAnimation();
@@ -630,12 +1135,23 @@ public abstract class BaseBlurView extends View {
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
+        BlurRuntime.acquire();
+        // Callbacks of a previous attachment may have been dropped with the PixelCopy thread
+        mIsPixelCopyPending = false;
+        mSurfaceCaptures.clear();
         mDecorView = getActivityDecorView();
         if (mDecorView != null) {
             mDecorView.getViewTreeObserver().addOnPreDrawListener(preDrawListener);
+            if (mScrollContainer != null) {
+                mLastScrollOffset = getScrollOffset(mScrollContainer);
+                mDecorView.getViewTreeObserver().addOnScrollChangedListener(mScrollListener);
+            }
+            mVideoSurfaceIndex = VideoSurfaceIndex.acquire(mDecorView);
             mDifferentRoot = mDecorView.getRootView() != getRootView();
             mFirstDraw = true;
             mForceRedraw = true;
+            // Convert the hardware bitmaps already on screen before the first capture needs them
+            HardwareBitmapShadows.prefetch(mDecorView, mShadowReady);
         }
     }
 
@@ -643,16 +1159,24 @@ public abstract class BaseBlurView extends View {
     protected void onDetachedFromWindow() {
         if (mDecorView != null) {
             mDecorView.getViewTreeObserver().removeOnPreDrawListener(preDrawListener);
+            mDecorView.getViewTreeObserver().removeOnScrollChangedListener(mScrollListener);
             mDecorView = null;
         }
+        if (mVideoSurfaceIndex != null) {
+            mVideoSurfaceIndex.release();
+            mVideoSurfaceIndex = null;
+        }
+        mHandler.removeCallbacks(mScrollSettled);
+        mScrollFast = false;
         release();
+        BlurRuntime.release();
         super.onDetachedFromWindow();
     }
 
     @Override
     public void draw(@NonNull Canvas canvas) {
         if (!mIsRendering) {
-            if (mFirstDraw || mForceRedraw) {
+            if ((mFirstDraw || mForceRedraw) && shouldCapture()) {
                 performBlurSync();
                 mFirstDraw = false;
                 mForceRedraw = false;
@@ -661,6 +1185,18 @@ public abstract class BaseBlurView extends View {
         }
     }
 
+    @Override
+    public void onWindowFocusChanged(boolean hasWindowFocus) {
+        super.onWindowFocusChanged(hasWindowFocus);
+        if (hasWindowFocus && mBlurGated) invalidate();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        if (visibility == VISIBLE && mBlurGated) invalidate();
+    }
+
     @Override
     protected void onDraw(@NonNull Canvas canvas) {
         super.onDraw(canvas);
@@ -672,7 +1208,10 @@ public abstract class BaseBlurView extends View {
             return;
         }
         if (mBlurredBitmap != null) {
-            mRectSrc.set(0, 0, mBlurredBitmap.getWidth(), mBlurredBitmap.getHeight());
+            // The bicubic upsample is drawn filtered, the remaining 2x is too small to show blocks
+            Bitmap bitmap = mUpsampledBitmap != null ? mUpsampledBitmap : mBlurredBitmap;
+            Paint paint = mUpsampledBitmap != null ? mUpsamplePaint : null;
+            mRectSrc.set(0, 0, bitmap.getWidth(), bitmap.getHeight());
             mRectDst.set(0, 0, getWidth(), getHeight());
 
             if (mCornerRadius > 0) {
@@ -680,13 +1219,16 @@ public abstract class BaseBlurView extends View {
                 mClipRect.set(mRectDst);
                 Utils.roundedRectPath(mClipRect, mCornerRadius, mG3Path);
                 canvas.clipPath(mG3Path);
-                canvas.drawBitmap(mBlurredBitmap, mRectSrc, mRectDst, null);
+                canvas.drawBitmap(bitmap, mRectSrc, mRectDst, paint);
                 canvas.restore();
             } else {
-                canvas.drawBitmap(mBlurredBitmap, mRectSrc, mRectDst, null);
+                canvas.drawBitmap(bitmap, mRectSrc, mRectDst, paint);
             }
         }
 
+        // A fused overlay is already in the blurred pixels, masked blurs do not fuse it
+        if (mFuseOverlay && mBlurMask == null && mBlurredBitmap != null) return;
+
         mPaint.setColor(mOverlayColor);
 
         if (mCornerRadius > 0) {
@@ -50,12 +50,15 @@ import android.view.ViewTreeObserver;
 import android.view.PixelCopy;
 import android.os.Build;
 import android.os.Handler;
-import android.os.HandlerThread;
 import android.os.Looper;
 
 import com.qmdeve.blurview.Blur;
+import com.qmdeve.blurview.BlurCache;
+import com.qmdeve.blurview.BlurMemoryBudget;
 import com.qmdeve.blurview.BlurNative;
+import com.qmdeve.blurview.BlurRuntime;
 import com.qmdeve.blurview.R;
+import com.qmdeve.blurview.util.HardwareBitmapShadows;
 import com.qmdeve.blurview.util.Utils;
 
 public class BaseBlurViewGroup {
@@ -63,6 +66,8 @@ public class BaseBlurViewGroup {
     private float mBlurRadius;
     private float mDownsampleFactor = 0f;
     private final Blur mBlur;
+    // Cancels the blurs of this view only, other users of the blur are left running
+    private final BlurNative.CancellationToken mBlurCancellation = new BlurNative.CancellationToken();
     private boolean mDirty = true;
     private Bitmap mBitmapToBlur, mBlurredBitmap;
     private Canvas mBlurringCanvas;
@@ -78,23 +83,37 @@ public class BaseBlurViewGroup {
     private boolean mSkipNextPreDraw = false;
     private boolean mIsPixelCopyPending = false;
     private final Handler mHandler = new Handler(Looper.getMainLooper());
-    private HandlerThread mPixelCopyThread;
-    private Handler mPixelCopyHandler;
+    private float mBudgetDownsample = 1f;
+    private final Rect mVisibleRect = new Rect();
+    private boolean mBlurGated = false;
+    private boolean mPauseWithoutFocus = false;
+    private final BlurCache.FrameGate mCacheGate = new BlurCache.FrameGate();
+
+    private final BlurMemoryBudget.Client mBudgetClient = new BlurMemoryBudget.Client() {
+        @Override
+        public boolean isOnScreen() {
+            return mHostView != null && mHostView.isAttachedToWindow() && mHostView.isShown();
+        }
+
+        @Override
+        public void onTrimBlurMemory() {
+            releaseBitmap();
+            mForceRedraw = true;
+            if (isOnScreen()) mHostView.invalidate();
+        }
+    };
+
+    // Capture again once the software shadow of a skipped hardware bitmap is available
+    private final Runnable mShadowReady = () -> {
+        mForceRedraw = true;
+        if (mHostView != null) mHostView.invalidate();
+    };
 
     public BaseBlurViewGroup(Context context, AttributeSet attrs) {
         mBlur = new BlurNative();
-        initPixelCopyThread();
         initAttributes(context, attrs);
     }
 
-    private void initPixelCopyThread() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-            mPixelCopyThread = new HandlerThread("BlurViewGroupPixelCopy");
-            mPixelCopyThread.start();
-            mPixelCopyHandler = new Handler(mPixelCopyThread.getLooper());
-        }
-    }
-
     private void initAttributes(Context context, AttributeSet attrs) {
         TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.BlurView);
         mBlurRadius = a.getDimension(
@@ -166,6 +185,17 @@ public class BaseBlurViewGroup {
         }
     }
 
+    /**
+     * Pause capture and blur while the window has no focus, e.g. behind a fullscreen dialog.
+     * Off by default, an unfocused window is still visible in multi-window mode,
+     * behind non-fullscreen dialogs and under popups
+     * @param pause Whether losing window focus pauses the blur
+     */
+    public void setPauseWithoutFocus(boolean pause) {
+        mPauseWithoutFocus = pause;
+        if (!pause && mBlurGated && mHostView != null) mHostView.invalidate();
+    }
+
     public void setCornerRadius(float radius) {
         if (mCornerRadius != radius && radius >= 0) {
             mCornerRadius = radius;
@@ -198,16 +228,14 @@ public class BaseBlurViewGroup {
             mBlurredBitmap = null;
         }
         mBlurringCanvas = null;
+        BlurMemoryBudget.release(mBudgetClient);
     }
 
     public void release() {
         releaseBitmap();
+        mBudgetDownsample = 1f;
+        mBlurCancellation.cancel();
         mBlur.release();
-        if (mPixelCopyThread != null) {
-            mPixelCopyThread.quitSafely();
-            mPixelCopyThread = null;
-            mPixelCopyHandler = null;
-        }
     }
 
     private boolean prepare(int width, int height) {
@@ -226,8 +254,16 @@ public class BaseBlurViewGroup {
 
         if (width == 0 || height == 0) return false;
 
-        int scaledWidth = Math.max(1, Math.round(width / downsampleFactor));
-        int scaledHeight = Math.max(1, Math.round(height / downsampleFactor));
+        // Two ARGB_8888 working bitmaps at the requested quality, the budget may ask for a coarser one
+        long bytes = 8L * Math.max(1, Math.round(width / downsampleFactor)) * Math.max(1, Math.round(height / downsampleFactor));
+
+        // Other views may have freed memory since the budget handed out a coarser buffer
+        if (mBudgetDownsample > 1f && BlurMemoryBudget.fits(mBudgetClient, bytes)) {
+            mBudgetDownsample = 1f;
+        }
+
+        int scaledWidth = Math.max(1, Math.round(width / (downsampleFactor * mBudgetDownsample)));
+        int scaledHeight = Math.max(1, Math.round(height / (downsampleFactor * mBudgetDownsample)));
 
         boolean dirty = mDirty;
 
@@ -235,20 +271,28 @@ public class BaseBlurViewGroup {
             dirty = true;
             releaseBitmap();
 
+            mBudgetDownsample = BlurMemoryBudget.reserve(mBudgetClient, bytes);
+            scaledWidth = Math.max(1, Math.round(width / (downsampleFactor * mBudgetDownsample)));
+            scaledHeight = Math.max(1, Math.round(height / (downsampleFactor * mBudgetDownsample)));
+
             try {
                 mBitmapToBlur = Bitmap.createBitmap(scaledWidth, scaledHeight, Bitmap.Config.ARGB_8888);
-                mBlurringCanvas = new Canvas(mBitmapToBlur);
+                mBlurringCanvas = new ShadowCanvas(mBitmapToBlur, mShadowReady);
                 mBlurredBitmap = Bitmap.createBitmap(scaledWidth, scaledHeight, Bitmap.Config.ARGB_8888);
 
                 // Ensure software bitmaps for compatibility
                 mBitmapToBlur = Utils.ensureSoftwareBitmap(mBitmapToBlur);
                 mBlurredBitmap = Utils.ensureSoftwareBitmap(mBlurredBitmap);
+                BlurMemoryBudget.commit(mBudgetClient, mBitmapToBlur.getAllocationByteCount() + mBlurredBitmap.getAllocationByteCount());
             } catch (OutOfMemoryError | IllegalArgumentException e) {
                 release();
                 return false;
             }
         }
 
+        // Keep the visual blur strength when the budget forces a coarser buffer
+        radius /= mBudgetDownsample;
+
         if (dirty && mBlur.prepare(mBitmapToBlur, radius)) {
             mDirty = false;
         }
@@ -278,46 +322,76 @@ public class BaseBlurViewGroup {
 
         mIsPixelCopyPending = true;
 
+        // Copy and blur into buffers of our own, the main thread may reallocate the working bitmaps meanwhile
+        final int bitmapWidth = mBitmapToBlur.getWidth();
+        final int bitmapHeight = mBitmapToBlur.getHeight();
+        final Bitmap source = BaseBlurView.CAPTURE_POOL.get(bitmapWidth, bitmapHeight);
+        final Bitmap target = BaseBlurView.CAPTURE_POOL.get(bitmapWidth, bitmapHeight);
+        final BaseBlurView.BlurJob job = createBlurJob(bitmapWidth);
+
         try {
-            Handler handler = mPixelCopyHandler != null ? mPixelCopyHandler : mHandler;
-            PixelCopy.request(window, rect, mBitmapToBlur, copyResult -> {
+            Handler handler = BlurRuntime.getPixelCopyHandler();
+            if (handler == null) handler = mHandler;
+            PixelCopy.request(window, rect, source, copyResult -> {
+                // Blur on the PixelCopy thread, the main thread only swaps in the result
+                boolean blurred = false;
+                if (copyResult == PixelCopy.SUCCESS) {
+                    try {
+                        blurred = BaseBlurView.runBlurJob(job, source, target);
+                    } catch (RuntimeException e) {
+                        Log.e(Utils.TAG, "PixelCopy fallback blur failed: " + e.getMessage());
+                    }
+                } else {
+                    Log.w(Utils.TAG, "PixelCopy fallback failed: " + copyResult);
+                }
+
+                final boolean success = blurred;
                 mHandler.post(() -> {
                     mIsPixelCopyPending = false;
-                    if (copyResult == PixelCopy.SUCCESS) {
-                        blur(mBitmapToBlur, mBlurredBitmap);
+                    BaseBlurView.CAPTURE_POOL.put(source);
+                    if (success && mBlurredBitmap != null
+                            && mBlurredBitmap.getWidth() == bitmapWidth
+                            && mBlurredBitmap.getHeight() == bitmapHeight) {
+                        // The last display list may still draw the old bitmap, another view must not reuse it
+                        mBlurredBitmap.recycle();
+                        mBlurredBitmap = target;
+                        // A pooled bitmap may be larger than the one it replaced
+                        if (mBitmapToBlur != null) {
+                            BlurMemoryBudget.commit(mBudgetClient, mBitmapToBlur.getAllocationByteCount()
+                                    + mBlurredBitmap.getAllocationByteCount());
+                        }
                         if (mHostView != null) mHostView.invalidate();
                     } else {
-                        Log.w(Utils.TAG, "PixelCopy fallback failed: " + copyResult);
+                        BaseBlurView.CAPTURE_POOL.put(target);
                     }
                 });
             }, handler);
         } catch (IllegalArgumentException e) {
             mIsPixelCopyPending = false;
+            BaseBlurView.CAPTURE_POOL.put(source);
+            BaseBlurView.CAPTURE_POOL.put(target);
             Log.e(Utils.TAG, "PixelCopy fallback exception: " + e.getMessage());
         }
     }
 
     private void blur(Bitmap input, Bitmap output) {
-        try {
-            // Ensure input is software bitmap
-            Bitmap softwareInput = Utils.ensureSoftwareBitmap(input);
-            mBlur.blur(softwareInput, output);
-        } catch (IllegalArgumentException e) {
-            if (e.getMessage() != null &&
-                    e.getMessage().contains("Software rendering doesn't support hardware bitmaps")) {
-                Log.e(Utils.TAG, "Hardware bitmap error detected, converting and retrying");
-                // Force conversion and retry
-                Bitmap softwareInput = input.copy(Bitmap.Config.ARGB_8888, false);
-                Bitmap softwareOutput = output.copy(Bitmap.Config.ARGB_8888, false);
-                if (softwareInput != null && softwareOutput != null) {
-                    mBlur.blur(softwareInput, softwareOutput);
-                } else {
-                    throw new RuntimeException("Failed to convert hardware bitmaps for blur processing", e);
-                }
-            } else {
-                throw e;
-            }
+        BaseBlurView.runBlurJob(createBlurJob(output.getWidth()), input, output);
+    }
+
+    // Capture the blur settings on the main thread, the PixelCopy fallback blurs on another one
+    private BaseBlurView.BlurJob createBlurJob(int outputWidth) {
+        if (!(mBlur instanceof BlurNative)) {
+            Blur blur = mBlur;
+            return (input, output) -> {
+                blur.blur(input, output);
+                return true;
+            };
         }
+        BlurNative blur = (BlurNative) mBlur;
+        int hostWidth = mHostView != null ? mHostView.getWidth() : 0;
+        float downsample = outputWidth > 0 ? (float) hostWidth / outputWidth : 1f;
+        return new BaseBlurView.BlurParams(blur, blur.getRadius(), blur.getBlurRounds(), blur.getEffects(),
+                null, 0f, mBlurRadius, downsample, mCacheGate, mBlurCancellation);
     }
 
     public boolean performBlurSync(int width, int height) {
@@ -333,6 +407,8 @@ public class BaseBlurViewGroup {
             return false;
         }
 
+        BlurMemoryBudget.markDrawn(mBudgetClient);
+
         int[] locDecor = new int[2];
         int[] locSelf = new int[2];
         mDecorView.getLocationOnScreen(locDecor);
@@ -357,22 +433,12 @@ public class BaseBlurViewGroup {
             } catch (IllegalArgumentException e) {
                 if (e.getMessage() != null &&
                         e.getMessage().contains("Software rendering doesn't support hardware bitmaps")) {
-                    Log.w(Utils.TAG, "Hardware bitmap detected during draw, converting and retrying");
-                    // Convert hardware bitmaps in the view hierarchy
-                    Utils.disableHardwareBitmapsInView(mDecorView);
-                    // Retry the draw
-                    try {
-                        mBlurringCanvas.restoreToCount(saveCount);
-                        saveCount = mBlurringCanvas.save();
-                        mBlurringCanvas.scale(scaleX, scaleY);
-                        mBlurringCanvas.translate(-offsetX, -offsetY);
-                        mDecorView.draw(mBlurringCanvas);
-                    } catch (Exception retryError) {
-                        Log.e(Utils.TAG, "Retry after hardware bitmap conversion failed: " + retryError.getMessage() + ". Switching to PixelCopy fallback.");
-                        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                            performPixelCopyBlur(width, height);
-                            return false;
-                        }
+                    // A hardware bitmap reached the canvas outside drawBitmap (e.g. through a shader),
+                    // capture the window instead of converting the bitmaps of the application
+                    Log.w(Utils.TAG, "Hardware bitmap detected during draw. Switching to PixelCopy fallback.");
+                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                        performPixelCopyBlur(width, height);
+                        return false;
                     }
                 } else {
                     throw e;
@@ -390,17 +456,40 @@ public class BaseBlurViewGroup {
     }
 
     public void ensureBlurReady(int width, int height) {
-        if (mFirstDraw || mForceRedraw) {
+        if ((mFirstDraw || mForceRedraw) && shouldCapture()) {
             performBlurSync(width, height);
             mFirstDraw = false;
             mForceRedraw = false;
         }
     }
 
+    /**
+     * Gate capture and blur on actual visibility.
+     * A gated view does no work at all and resumes with a single catch-up blur
+     * @return Whether capture and blur should run for this frame
+     */
+    private boolean shouldCapture() {
+        if (mHostView == null) return false;
+        if (!Utils.isBlurVisible(mHostView, mVisibleRect, mPauseWithoutFocus && mBlurredBitmap != null)) {
+            mBlurGated = true;
+            return false;
+        }
+        if (mBlurGated) {
+            mBlurGated = false;
+            // The pre-draw blur is the catch-up, just make sure it gets drawn
+            mHostView.invalidate();
+        }
+        return true;
+    }
+
+    private final ViewTreeObserver.OnWindowFocusChangeListener focusChangeListener = hasFocus -> {
+        if (hasFocus && mBlurGated && mHostView != null) mHostView.invalidate();
+    };
+
     private final ViewTreeObserver.OnPreDrawListener preDrawListener = new ViewTreeObserver.OnPreDrawListener() {
         @Override
         public boolean onPreDraw() {
-            if (mHostView == null || !mHostView.isShown()) return true;
+            if (!shouldCapture()) return true;
 
             if (mSkipNextPreDraw) {
                 mSkipNextPreDraw = false;
@@ -426,21 +515,29 @@ public class BaseBlurViewGroup {
 
     public void onAttachedToWindow(View hostView) {
         this.mHostView = hostView;
+        BlurRuntime.acquire();
+        // Callbacks of a previous attachment may have been dropped with the PixelCopy thread
+        mIsPixelCopyPending = false;
         mDecorView = getActivityDecorView();
         if (mDecorView != null) {
             mDecorView.getViewTreeObserver().addOnPreDrawListener(preDrawListener);
+            hostView.getViewTreeObserver().addOnWindowFocusChangeListener(focusChangeListener);
             mDifferentRoot = mDecorView.getRootView() != hostView.getRootView();
             mFirstDraw = true;
             mForceRedraw = true;
+            // Convert the hardware bitmaps already on screen before the first capture needs them
+            HardwareBitmapShadows.prefetch(mDecorView, mShadowReady);
         }
     }
 
     public void onDetachedFromWindow() {
         if (mDecorView != null) {
             mDecorView.getViewTreeObserver().removeOnPreDrawListener(preDrawListener);
+            if (mHostView != null) mHostView.getViewTreeObserver().removeOnWindowFocusChangeListener(focusChangeListener);
             mDecorView = null;
         }
         release();
+        BlurRuntime.release();
         mHostView = null;
     }
 
@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025-2026 Donny Yale
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ===========================================
+ * Project: QmBlurView
+ * Created Date: 2025-10-21
+ * Author: Donny Yale
+ * GitHub: https://github.com/QmDeve/QmBlurView
+ * Website: https://blurview.qmdeve.com
+ * ===========================================
+ */
+
+package com.qmdeve.blurview.base;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.qmdeve.blurview.util.HardwareBitmapShadows;
+
+/**
+ * Capture canvas that draws the software shadow of HARDWARE bitmaps
+ * instead of failing with "Software rendering doesn't support hardware bitmaps".
+ * A bitmap whose shadow is not converted yet is skipped for this capture
+ * and onShadowReady triggers a new one once it is available
+ */
+class ShadowCanvas extends Canvas {
+    private final Runnable mOnShadowReady;
+
+    ShadowCanvas(@NonNull Bitmap bitmap, Runnable onShadowReady) {
+        super(bitmap);
+        mOnShadowReady = onShadowReady;
+    }
+
+    private Bitmap resolve(Bitmap bitmap) {
+        return HardwareBitmapShadows.isHardware(bitmap)
+                ? HardwareBitmapShadows.getShadow(bitmap, mOnShadowReady)
+                : bitmap;
+    }
+
+    @Override
+    public void drawBitmap(@NonNull Bitmap bitmap, float left, float top, @Nullable Paint paint) {
+        Bitmap resolved = resolve(bitmap);
+        if (resolved != null) super.drawBitmap(resolved, left, top, paint);
+    }
+
+    @Override
+    public void drawBitmap(@NonNull Bitmap bitmap, @Nullable Rect src, @NonNull RectF dst, @Nullable Paint paint) {
+        Bitmap resolved = resolve(bitmap);
+        if (resolved != null) super.drawBitmap(resolved, src, dst, paint);
+    }
+
+    @Override
+    public void drawBitmap(@NonNull Bitmap bitmap, @Nullable Rect src, @NonNull Rect dst, @Nullable Paint paint) {
+        Bitmap resolved = resolve(bitmap);
+        if (resolved != null) super.drawBitmap(resolved, src, dst, paint);
+    }
+
+    @Override
+    public void drawBitmap(@NonNull Bitmap bitmap, @NonNull Matrix matrix, @Nullable Paint paint) {
+        Bitmap resolved = resolve(bitmap);
+        if (resolved != null) super.drawBitmap(resolved, matrix, paint);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025-2026 Donny Yale
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ===========================================
+ * Project: QmBlurView
+ * Created Date: 2025-10-21
+ * Author: Donny Yale
+ * GitHub: https://github.com/QmDeve/QmBlurView
+ * Website: https://blurview.qmdeve.com
+ * ===========================================
+ */
+
+package com.qmdeve.blurview.base;
+
+import android.os.SystemClock;
+import android.view.SurfaceView;
+import android.view.TextureView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Index of the TextureViews and SurfaceViews below a decor view,
+ * shared by every blur view capturing that decor.
+ * Positions are read per capture, so only added and removed views matter. A removed view
+ * drops the index through its detach event, views added later are found by a rescan after
+ * a layout, at most once per RESCAN_INTERVAL_MS however often the hierarchy is laid out
+ */
+final class VideoSurfaceIndex implements ViewTreeObserver.OnGlobalLayoutListener, View.OnAttachStateChangeListener {
+    private static final Map<View, VideoSurfaceIndex> INDEXES = new WeakHashMap<>();
+
+    // Minimum time between two rescans caused by layouts, e.g. of every frame of an animation
+    private static final long RESCAN_INTERVAL_MS = 1000;
+
+    // Weak, the index is the value of a WeakHashMap keyed by the decor view
+    private final WeakReference<View> mDecorView;
+    private final List<TextureView> mTextureViews = new ArrayList<>();
+    private final List<SurfaceView> mSurfaceViews = new ArrayList<>();
+    private ViewTreeObserver mObserver;
+    private boolean mDirty = true;
+    private boolean mLaidOut = false;
+    private long mLastScan;
+    private int mRefCount;
+
+    private VideoSurfaceIndex(View decorView) {
+        mDecorView = new WeakReference<>(decorView);
+    }
+
+    /**
+     * Get the index of a decor view, registering a new user
+     * @param decorView Decor view being captured
+     * @return Shared index
+     */
+    static VideoSurfaceIndex acquire(View decorView) {
+        VideoSurfaceIndex index = INDEXES.get(decorView);
+        if (index == null) {
+            index = new VideoSurfaceIndex(decorView);
+            index.mObserver = decorView.getViewTreeObserver();
+            index.mObserver.addOnGlobalLayoutListener(index);
+            INDEXES.put(decorView, index);
+        }
+        index.mRefCount++;
+        return index;
+    }
+
+    /**
+     * Unregister a user, the index is dropped with its last user
+     */
+    void release() {
+        if (--mRefCount > 0) return;
+
+        View decorView = mDecorView.get();
+        if (mObserver != null && mObserver.isAlive()) {
+            mObserver.removeOnGlobalLayoutListener(this);
+        } else if (decorView != null) {
+            decorView.getViewTreeObserver().removeOnGlobalLayoutListener(this);
+        }
+        mObserver = null;
+        if (decorView != null) INDEXES.remove(decorView);
+        clear();
+    }
+
+    @Override
+    public void onGlobalLayout() {
+        // Views may have been added, the rescan is throttled in rebuildIfDirty
+        mLaidOut = true;
+    }
+
+    @Override
+    public void onViewAttachedToWindow(View v) {
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(View v) {
+        // An indexed view left the window, drop it right away
+        clear();
+    }
+
+    /**
+     * @return TextureViews currently below the decor view
+     */
+    List<TextureView> getTextureViews() {
+        rebuildIfDirty();
+        return mTextureViews;
+    }
+
+    /**
+     * @return SurfaceViews currently below the decor view
+     */
+    List<SurfaceView> getSurfaceViews() {
+        rebuildIfDirty();
+        return mSurfaceViews;
+    }
+
+    private void clear() {
+        for (int i = 0; i < mTextureViews.size(); i++) {
+            mTextureViews.get(i).removeOnAttachStateChangeListener(this);
+        }
+        for (int i = 0; i < mSurfaceViews.size(); i++) {
+            mSurfaceViews.get(i).removeOnAttachStateChangeListener(this);
+        }
+        mTextureViews.clear();
+        mSurfaceViews.clear();
+        mDirty = true;
+    }
+
+    private void rebuildIfDirty() {
+        long now = SystemClock.uptimeMillis();
+        if (mLaidOut && now - mLastScan >= RESCAN_INTERVAL_MS) clear();
+        if (!mDirty) return;
+
+        View decorView = mDecorView.get();
+        if (decorView != null) collect(decorView);
+        mDirty = false;
+        mLaidOut = false;
+        mLastScan = now;
+    }
+
+    private void collect(View view) {
+        if (view instanceof TextureView) {
+            mTextureViews.add((TextureView) view);
+            view.addOnAttachStateChangeListener(this);
+        } else if (view instanceof SurfaceView) {
+            mSurfaceViews.add((SurfaceView) view);
+            view.addOnAttachStateChangeListener(this);
+        } else if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                collect(group.getChildAt(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025-2026 Donny Yale
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ===========================================
+ * Project: QmBlurView
+ * Created Date: 2025-10-21
+ * Author: Donny Yale
+ * GitHub: https://github.com/QmDeve/QmBlurView
+ * Website: https://blurview.qmdeve.com
+ * ===========================================
+ */
+
+package com.qmdeve.blurview.util;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.RestrictTo;
+
+import static androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Small size-keyed pool of mutable ARGB_8888 bitmaps,
+ * used to reuse capture and blur buffers instead of allocating per frame
+ */
+@RestrictTo(LIBRARY_GROUP)
+public class BitmapPool {
+    private final Map<Long, ArrayDeque<Bitmap>> mPool = new HashMap<>();
+    private final long mMaxBytes;
+    private long mBytes;
+
+    /**
+     * @param maxBytes Maximum bytes kept in the pool, extra bitmaps are recycled
+     */
+    public BitmapPool(long maxBytes) {
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Get a bitmap of the given size, content is undefined
+     * @param width Bitmap width
+     * @param height Bitmap height
+     * @return Pooled or newly created bitmap
+     */
+    public Bitmap get(int width, int height) {
+        synchronized (this) {
+            ArrayDeque<Bitmap> bitmaps = mPool.get(key(width, height));
+            if (bitmaps != null) {
+                Bitmap bitmap;
+                while ((bitmap = bitmaps.poll()) != null) {
+                    mBytes -= bitmap.getAllocationByteCount();
+                    if (!bitmap.isRecycled()) return bitmap;
+                }
+            }
+        }
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * Return a bitmap to the pool
+     * @param bitmap Bitmap no longer in use by the caller
+     */
+    public void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) return;
+        if (!bitmap.isMutable() || bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
+            bitmap.recycle();
+            return;
+        }
+
+        synchronized (this) {
+            int bytes = bitmap.getAllocationByteCount();
+            if (mBytes + bytes <= mMaxBytes) {
+                long key = key(bitmap.getWidth(), bitmap.getHeight());
+                ArrayDeque<Bitmap> bitmaps = mPool.get(key);
+                if (bitmaps == null) {
+                    bitmaps = new ArrayDeque<>();
+                    mPool.put(key, bitmaps);
+                }
+                bitmaps.push(bitmap);
+                mBytes += bytes;
+                return;
+            }
+        }
+        bitmap.recycle();
+    }
+
+    /**
+     * Recycle every pooled bitmap
+     */
+    public synchronized void clear() {
+        for (ArrayDeque<Bitmap> bitmaps : mPool.values()) {
+            for (Bitmap bitmap : bitmaps) bitmap.recycle();
+        }
+        mPool.clear();
+        mBytes = 0;
+    }
+
+    private static long key(int width, int height) {
+        return ((long) width << 32) | (height & 0xFFFFFFFFL);
+    }
+}
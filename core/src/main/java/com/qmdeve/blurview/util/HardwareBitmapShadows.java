@@ -0,0 +1,211 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025-2026 Donny Yale
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ===========================================
+ * Project: QmBlurView
+ * Created Date: 2025-10-21
+ * Author: Donny Yale
+ * GitHub: https://github.com/QmDeve/QmBlurView
+ * Website: https://blurview.qmdeve.com
+ * ===========================================
+ */
+
+package com.qmdeve.blurview.util;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import androidx.annotation.RestrictTo;
+
+import com.qmdeve.blurview.BlurRuntime;
+
+import static androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP;
+
+import java.lang.ref.WeakReference;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded LRU of software copies ("shadows") of HARDWARE bitmaps.
+ * Software canvases cannot draw hardware bitmaps, so captures draw the shadow
+ * instead, leaving the bitmaps of the application untouched.
+ * Shadows are keyed by source identity and generation ID and converted on
+ * a background thread ahead of need
+ */
+@RestrictTo(LIBRARY_GROUP)
+public final class HardwareBitmapShadows {
+    private static final String TAG = "HardwareBitmapShadows";
+
+    // Default size of the cache, 16MB
+    private static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    private static final LinkedHashMap<Integer, Shadow> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+    private static final Set<Integer> PENDING = new HashSet<>();
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+    private static long sMaxBytes = DEFAULT_MAX_BYTES;
+    private static long sBytes;
+
+    private static final class Shadow {
+        final WeakReference<Bitmap> source;
+        final int generation;
+        final Bitmap bitmap;
+
+        Shadow(Bitmap source, Bitmap bitmap) {
+            this.source = new WeakReference<>(source);
+            this.generation = source.getGenerationId();
+            this.bitmap = bitmap;
+        }
+
+        boolean matches(Bitmap bitmap) {
+            return source.get() == bitmap && generation == bitmap.getGenerationId();
+        }
+    }
+
+    private HardwareBitmapShadows() {
+    }
+
+    /**
+     * Set the maximum memory held by shadows
+     * @param bytes Size in bytes
+     */
+    public static synchronized void setMaxBytes(long bytes) {
+        sMaxBytes = Math.max(0, bytes);
+        trimToSize();
+    }
+
+    /**
+     * Whether a bitmap can not be drawn on a software canvas
+     * @param bitmap Bitmap to check
+     * @return true for HARDWARE bitmaps
+     */
+    public static boolean isHardware(Bitmap bitmap) {
+        return bitmap != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                && bitmap.getConfig() == Bitmap.Config.HARDWARE;
+    }
+
+    /**
+     * Get the shadow of a hardware bitmap without blocking.
+     * On a miss the conversion is scheduled on a background thread
+     * @param bitmap Hardware bitmap
+     * @param onReady Run on the main thread once a scheduled conversion finished, may be null
+     * @return Software shadow, or null if it is not converted yet
+     */
+    public static Bitmap getShadow(Bitmap bitmap, Runnable onReady) {
+        Bitmap shadow = lookup(bitmap);
+        if (shadow == null) schedule(bitmap, onReady);
+        return shadow;
+    }
+
+    /**
+     * Get the shadow of a hardware bitmap, converting it on the calling thread on a miss
+     * @param bitmap Hardware bitmap
+     * @return Software shadow, or null if the conversion failed
+     */
+    public static Bitmap getShadowSync(Bitmap bitmap) {
+        Bitmap shadow = lookup(bitmap);
+        return shadow != null ? shadow : convert(bitmap);
+    }
+
+    /**
+     * Convert the hardware bitmaps shown by ImageViews below a view ahead of the first capture
+     * @param view Root of the hierarchy
+     * @param onReady Run on the main thread for every finished conversion, may be null
+     */
+    public static void prefetch(View view, Runnable onReady) {
+        if (view == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return;
+
+        if (view instanceof ImageView) {
+            Drawable drawable = ((ImageView) view).getDrawable();
+            if (drawable instanceof BitmapDrawable) {
+                Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+                if (isHardware(bitmap)) getShadow(bitmap, onReady);
+            }
+        } else if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                prefetch(group.getChildAt(i), onReady);
+            }
+        }
+    }
+
+    private static synchronized Bitmap lookup(Bitmap bitmap) {
+        Shadow shadow = CACHE.get(System.identityHashCode(bitmap));
+        return shadow != null && shadow.matches(bitmap) ? shadow.bitmap : null;
+    }
+
+    private static void schedule(Bitmap bitmap, Runnable onReady) {
+        final int key = System.identityHashCode(bitmap);
+        synchronized (HardwareBitmapShadows.class) {
+            if (!PENDING.add(key)) return;
+        }
+
+        final WeakReference<Bitmap> source = new WeakReference<>(bitmap);
+        BlurRuntime.getBackgroundExecutor().execute(() -> {
+            Bitmap pending = source.get();
+            Bitmap shadow = pending != null && !pending.isRecycled() ? convert(pending) : null;
+            synchronized (HardwareBitmapShadows.class) {
+                PENDING.remove(key);
+            }
+            if (shadow != null && onReady != null) MAIN_HANDLER.post(onReady);
+        });
+    }
+
+    private static Bitmap convert(Bitmap bitmap) {
+        Bitmap shadow;
+        try {
+            shadow = bitmap.copy(Bitmap.Config.ARGB_8888, false);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to convert hardware bitmap: " + e.getMessage());
+            return null;
+        }
+        if (shadow == null) return null;
+
+        synchronized (HardwareBitmapShadows.class) {
+            Shadow old = CACHE.put(System.identityHashCode(bitmap), new Shadow(bitmap, shadow));
+            if (old != null) sBytes -= old.bitmap.getAllocationByteCount();
+            sBytes += shadow.getAllocationByteCount();
+            trimToSize();
+        }
+        return shadow;
+    }
+
+    private static void trimToSize() {
+        // Evicted shadows are left to the GC, a capture may still be drawing them
+        Iterator<Map.Entry<Integer, Shadow>> iterator = CACHE.entrySet().iterator();
+        while (sBytes > sMaxBytes && iterator.hasNext()) {
+            sBytes -= iterator.next().getValue().bitmap.getAllocationByteCount();
+            iterator.remove();
+        }
+    }
+}
@@ -35,15 +35,11 @@ package com.qmdeve.blurview.util;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.Path;
+import android.graphics.Rect;
 import android.graphics.RectF;
-import android.graphics.drawable.BitmapDrawable;
-import android.graphics.drawable.Drawable;
-import android.os.Build;
-import android.util.Log;
 import android.util.TypedValue;
 import android.view.View;
-import android.view.ViewGroup;
-import android.widget.ImageView;
+import android.view.ViewParent;
 
 import androidx.annotation.RestrictTo;
 
@@ -123,6 +119,33 @@ public class Utils {
         path.close();
     }
 
+    /**
+     * Whether a blur view currently shows anything that needs to be blurred.
+     * It does not when it is hidden, fully clipped (e.g. scrolled out of a ScrollView),
+     * fully transparent, or its window is hidden because the host was stopped.
+     * A window without focus usually stays visible (multi-window, dialogs, popups),
+     * so focus only counts when the caller opts in
+     * @param view The blur view
+     * @param tmpRect Reusable rect for the visible area
+     * @param requireFocus Also pause while the window has no focus
+     * @return Whether capture and blur should run
+     */
+    public static boolean isBlurVisible(View view, Rect tmpRect, boolean requireFocus) {
+        if (!view.isShown() || view.getWindowVisibility() != View.VISIBLE) return false;
+        if (requireFocus && !view.hasWindowFocus()) return false;
+        if (!view.getGlobalVisibleRect(tmpRect)) return false;
+
+        // Effective alpha is the product of the whole chain, zero anywhere hides the view
+        View current = view;
+        while (true) {
+            if (current.getAlpha() <= 0f) return false;
+            ViewParent parent = current.getParent();
+            if (!(parent instanceof View)) break;
+            current = (View) parent;
+        }
+        return true;
+    }
+
     /**
      * Ensure bitmap is software-compatible for blur processing.
      * Converts hardware bitmaps to software bitmaps to prevent
@@ -137,61 +160,11 @@ public class Utils {
         }
 
         // Hardware bitmaps were introduced in Android O (API 26)
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            if (bitmap.getConfig() == Bitmap.Config.HARDWARE) {
-                Log.d(TAG, "Converting hardware bitmap to software bitmap for blur processing");
-                try {
-                    return bitmap.copy(Bitmap.Config.ARGB_8888, false);
-                } catch (Exception e) {
-                    Log.e(TAG, "Failed to convert hardware bitmap: " + e.getMessage());
-                    return bitmap; // Return original if copy fails
-                }
-            }
+        if (HardwareBitmapShadows.isHardware(bitmap)) {
+            Bitmap shadow = HardwareBitmapShadows.getShadowSync(bitmap);
+            return shadow != null ? shadow : bitmap; // Return original if copy fails
         }
 
         return bitmap;
     }
-
-    /**
-     * Recursively disable hardware bitmaps in a view hierarchy.
-     * This prevents "Software rendering doesn't support hardware bitmaps" errors
-     * when views are drawn onto software canvases for blur processing.
-     */
-    public static void disableHardwareBitmapsInView(View view) {
-        if (view == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
-            return;
-        }
-
-        try {
-            // Handle ImageView specifically
-            if (view instanceof ImageView) {
-                ImageView imageView = (ImageView) view;
-                Drawable drawable = imageView.getDrawable();
-
-                if (drawable instanceof BitmapDrawable) {
-                    BitmapDrawable bitmapDrawable = (BitmapDrawable) drawable;
-                    Bitmap bitmap = bitmapDrawable.getBitmap();
-
-                    if (bitmap != null && bitmap.getConfig() == Bitmap.Config.HARDWARE) {
-                        Log.d(TAG, "Converting hardware bitmap in ImageView to software");
-                        Bitmap softwareBitmap = bitmap.copy(Bitmap.Config.ARGB_8888, false);
-                        if (softwareBitmap != null) {
-                            imageView.setImageBitmap(softwareBitmap);
-                        }
-                    }
-                }
-            }
-
-            // Recursively process children if it's a ViewGroup
-            if (view instanceof ViewGroup) {
-                ViewGroup viewGroup = (ViewGroup) view;
-                int childCount = viewGroup.getChildCount();
-                for (int i = 0; i < childCount; i++) {
-                    disableHardwareBitmapsInView(viewGroup.getChildAt(i));
-                }
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error disabling hardware bitmaps: " + e.getMessage());
-        }
-    }
-}
\ No newline at end of file
+}
@@ -95,6 +95,10 @@ public class BlurViewGroup extends ViewGroup {
         mBaseBlurViewGroup.setCornerRadius(radius);
     }
 
+    public void setPauseWithoutFocus(boolean pause) {
+        mBaseBlurViewGroup.setPauseWithoutFocus(pause);
+    }
+
     public Bitmap getBlurredBitmap() {
         return mBaseBlurViewGroup.getBlurredBitmap();
     }
@@ -36,11 +36,8 @@ import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Color;
 import android.graphics.LinearGradient;
 import android.graphics.Paint;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffXfermode;
 import android.graphics.Rect;
 import android.graphics.Shader;
 import android.util.AttributeSet;
@@ -48,6 +45,7 @@ import android.util.AttributeSet;
 import androidx.annotation.ColorRes;
 import androidx.annotation.NonNull;
 
+import com.qmdeve.blurview.BlurNative;
 import com.qmdeve.blurview.R;
 import com.qmdeve.blurview.util.Utils;
 
@@ -58,8 +56,7 @@ public class ProgressiveBlurView extends BlurView {
     public static final int DIRECTION_LEFT_TO_RIGHT = 3;
     private final Rect mRectSrc = new Rect(), mRectDst = new Rect();
     private int mGradientDirection = DIRECTION_TOP_TO_BOTTOM;
-    private final Paint mBlendPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-    private final Paint mOverlayPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mBitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
     private int mOverlayColor;
     private float mBlurRadius = 25f;
 
@@ -84,18 +81,32 @@ public class ProgressiveBlurView extends BlurView {
         }
 
         super.setBlurRadius(mBlurRadius);
-        mBlendPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.DST_IN));
     }
 
     public void setGradientDirection(int direction) {
-        if (direction >= DIRECTION_TOP_TO_BOTTOM && direction <= DIRECTION_RIGHT_TO_LEFT) {
+        if (direction >= DIRECTION_BOTTOM_TO_TOP && direction <= DIRECTION_LEFT_TO_RIGHT) {
             if (mGradientDirection != direction) {
                 mGradientDirection = direction;
-                invalidate();
+                invalidateBlur();
             }
         }
     }
 
+    @Override
+    protected BlurJob createBlurJob(int outputWidth) {
+        if (!(mBlur instanceof BlurNative) || getWidth() == 0) {
+            return super.createBlurJob(outputWidth);
+        }
+        // The radius grows along the direction and the fade and overlay are baked into the pixels
+        BlurNative blur = (BlurNative) mBlur;
+        float maxRadius = mBlurRadius * outputWidth / getWidth();
+        int rounds = getBlurRounds();
+        int direction = mGradientDirection;
+        int overlayColor = mOverlayColor;
+        BlurNative.CancellationToken token = mBlurCancellation;
+        return (input, output) -> blur.blurProgressive(input, output, maxRadius, rounds, direction, overlayColor, token);
+    }
+
     @Override
     protected void onDraw(@NonNull Canvas canvas) {
         if (Utils.sIsGlobalCapturing && !mIsRendering) {
@@ -110,40 +121,9 @@ public class ProgressiveBlurView extends BlurView {
         Bitmap blurredBitmap = getBlurredBitmap();
         if (blurredBitmap == null) return;
 
-        int width = getWidth();
-        int height = getHeight();
-        if (width == 0 || height == 0) return;
-
-        int saveCount = canvas.saveLayer(0, 0, width, height, null);
-
         mRectSrc.set(0, 0, blurredBitmap.getWidth(), blurredBitmap.getHeight());
-        mRectDst.set(0, 0, width, height);
-        canvas.drawBitmap(blurredBitmap, mRectSrc, mRectDst, null);
-        LinearGradient gradient = createIntensityGradient(width, height);
-        mBlendPaint.setShader(gradient);
-        canvas.drawRect(0, 0, width, height, mBlendPaint);
-        LinearGradient overlayGradient = createOverlayGradient(width, height);
-        mOverlayPaint.setShader(overlayGradient);
-        canvas.drawRect(0, 0, width, height, mOverlayPaint);
-
-        canvas.restoreToCount(saveCount);
-    }
-
-    private LinearGradient createIntensityGradient(int width, int height) {
-        int endAlpha = (int) (255 * 1f);
-        int[] colors = new int[]{Color.argb(0, 0, 0, 0), Color.argb(endAlpha, 0, 0, 0)};
-        float[] pos = new float[]{0f, 1f};
-
-        switch (mGradientDirection) {
-            case DIRECTION_BOTTOM_TO_TOP:
-                return new LinearGradient(0, height, 0, 0, colors, pos, Shader.TileMode.CLAMP);
-            case DIRECTION_LEFT_TO_RIGHT:
-                return new LinearGradient(0, 0, width, 0, colors, pos, Shader.TileMode.CLAMP);
-            case DIRECTION_RIGHT_TO_LEFT:
-                return new LinearGradient(width, 0, 0, 0, colors, pos, Shader.TileMode.CLAMP);
-            default:
-                return new LinearGradient(0, 0, 0, height, colors, pos, Shader.TileMode.CLAMP);
-        }
+        mRectDst.set(0, 0, getWidth(), getHeight());
+        canvas.drawBitmap(blurredBitmap, mRectSrc, mRectDst, mBitmapPaint);
     }
 
     private LinearGradient createOverlayGradient(int width, int height) {
@@ -179,7 +159,7 @@ public class ProgressiveBlurView extends BlurView {
     public void setOverlayColor(int color) {
         if (mOverlayColor != color) {
             mOverlayColor = color;
-            invalidate();
+            invalidateBlur();
         }
     }
 
@@ -193,7 +173,7 @@ public class ProgressiveBlurView extends BlurView {
 
         if (mOverlayColor != color) {
             mOverlayColor = color;
-            invalidate();
+            invalidateBlur();
         }
     }
 
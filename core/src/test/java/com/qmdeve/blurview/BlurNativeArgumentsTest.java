@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025-2026 Donny Yale
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ===========================================
+ * Project: QmBlurView
+ * Created Date: 2025-10-21
+ * Author: Donny Yale
+ * GitHub: https://github.com/QmDeve/QmBlurView
+ * Website: https://blurview.qmdeve.com
+ * ===========================================
+ */
+
+package com.qmdeve.blurview;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The int[] and direct buffer entry points reject sizes, strides and channel orders
+ * the native code would read past, before the native library is loaded
+ */
+public class BlurNativeArgumentsTest {
+
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void intArrayRejectsEmptySize() {
+        new BlurNative().blur(new int[16], 0, 4, 0, 4, 10f, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void intArrayRejectsStrideBelowWidth() {
+        new BlurNative().blur(new int[WIDTH * HEIGHT], 0, WIDTH - 1, WIDTH, HEIGHT, 10f, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void intArrayRejectsShortArray() {
+        new BlurNative().blur(new int[WIDTH * HEIGHT - 1], 0, WIDTH, WIDTH, HEIGHT, 10f, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void intArrayRejectsNegativeOffset() {
+        new BlurNative().blur(new int[WIDTH * HEIGHT], -1, WIDTH, WIDTH, HEIGHT, 10f, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void directBufferRejectsEmptySize() {
+        new BlurNative().blur(ByteBuffer.allocateDirect(64), 4, 0, 16, BlurNative.CHANNELS_RGBA, 10f, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void directBufferRejectsRowStrideBelowRow() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4);
+        new BlurNative().blur(buffer, WIDTH, HEIGHT, WIDTH * 4 - 1, BlurNative.CHANNELS_RGBA, 10f, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void directBufferRejectsShortBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4 - 1);
+        new BlurNative().blur(buffer, WIDTH, HEIGHT, WIDTH * 4, BlurNative.CHANNELS_RGBA, 10f, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void directBufferRejectsUnknownChannelOrder() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4);
+        new BlurNative().blur(buffer, WIDTH, HEIGHT, WIDTH * 4, BlurNative.CHANNELS_ABGR + 1, 10f, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void heapBufferIsRejected() {
+        ByteBuffer buffer = ByteBuffer.allocate(WIDTH * HEIGHT * 4);
+        new BlurNative().blur(buffer, WIDTH, HEIGHT, WIDTH * 4, BlurNative.CHANNELS_RGBA, 10f, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void readOnlyBufferIsRejected() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WIDTH * HEIGHT * 4).asReadOnlyBuffer();
+        new BlurNative().blur(buffer, WIDTH, HEIGHT, WIDTH * 4, BlurNative.CHANNELS_RGBA, 10f, 1);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025-2026 Donny Yale
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ===========================================
+ * Project: QmBlurView
+ * Created Date: 2025-10-21
+ * Author: Donny Yale
+ * GitHub: https://github.com/QmDeve/QmBlurView
+ * Website: https://blurview.qmdeve.com
+ * ===========================================
+ */
+
+package com.qmdeve.blurview.transform.glide;
+
+import static org.junit.Assert.assertFalse;
+
+import android.graphics.Bitmap;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPoolAdapter;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent decodes share one transformation and the static BlurNative behind it,
+ * every one of them must come out blurred
+ */
+@RunWith(AndroidJUnit4.class)
+public class BlurTransformationConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int SIZE = 128;
+
+    @Test
+    public void everyConcurrentTransformIsBlurred() throws Exception {
+        BlurTransformation glide = new BlurTransformation(12f, 0f, 1f, false);
+        com.qmdeve.blurview.transform.picasso.BlurTransformation picasso =
+                new com.qmdeve.blurview.transform.picasso.BlurTransformation(12f);
+        BitmapPool pool = new BitmapPoolAdapter();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Bitmap> originals = new ArrayList<>();
+        List<Future<Bitmap>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            final Bitmap input = noise(SIZE, SIZE + i, i);
+            // Picasso may blur its source in place, compare against a copy
+            originals.add(input.copy(Bitmap.Config.ARGB_8888, false));
+            final boolean usePicasso = i % 2 == 1;
+            results.add(executor.submit(() -> {
+                start.await();
+                return usePicasso
+                        ? picasso.transform(input)
+                        : glide.transform(pool, input, input.getWidth(), input.getHeight());
+            }));
+        }
+        start.countDown();
+
+        for (int i = 0; i < THREADS; i++) {
+            Bitmap output = results.get(i).get(30, TimeUnit.SECONDS);
+            assertFalse("Output " + i + " was not blurred", output.sameAs(originals.get(i)));
+        }
+        executor.shutdown();
+    }
+
+    private static Bitmap noise(int width, int height, long seed) {
+        Random random = new Random(seed);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) pixels[i] = 0xFF000000 | random.nextInt(0x1000000);
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        bitmap.setPixels(pixels, 0, width, 0, 0, width, height);
+        return bitmap;
+    }
+}
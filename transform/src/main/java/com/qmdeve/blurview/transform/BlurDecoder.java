@@ -0,0 +1,181 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025-2026 Donny Yale
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ===========================================
+ * Project: QmBlurView
+ * Created Date: 2025-10-21
+ * Author: Donny Yale
+ * GitHub: https://github.com/QmDeve/QmBlurView
+ * Website: https://blurview.qmdeve.com
+ * ===========================================
+ */
+
+package com.qmdeve.blurview.transform;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.ImageDecoder;
+import android.os.Build;
+import android.util.Log;
+import android.util.Size;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import com.qmdeve.blurview.BlurNative;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Decodes resources and files straight into a blurred bitmap without an image loader.
+ * The image is decoded at a size derived from the blur radius, so the decoder
+ * never produces the detail the blur throws away, and the mutable decoded
+ * buffer is blurred in place
+ */
+public final class BlurDecoder {
+    private static final String TAG = "BlurDecoder";
+
+    // Blur radius, in pixels of the decoded bitmap, the subsampling aims for
+    private static final float TARGET_RADIUS = 6f;
+    private static final float MAX_FACTOR = 8f;
+    private static final BlurNative BLUR_NATIVE = new BlurNative();
+
+    private BlurDecoder() {
+    }
+
+    /**
+     * Decode and blur a drawable resource
+     * @param res Resources
+     * @param resId Resource id of a bitmap image
+     * @param reqWidth Width the result is shown at, 0 for the image width
+     * @param reqHeight Height the result is shown at, 0 for the image height
+     * @param blurRadius Blur radius in pixels of the requested size
+     * @return Blurred bitmap, smaller than requested, or null if decoding failed
+     */
+    @Nullable
+    public static Bitmap decodeResource(@NonNull Resources res, int resId, int reqWidth, int reqHeight, float blurRadius) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            return decode(ImageDecoder.createSource(res, resId), reqWidth, reqHeight, blurRadius);
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(res, resId, options);
+        prepareOptions(options, reqWidth, reqHeight, blurRadius);
+        return blur(BitmapFactory.decodeResource(res, resId, options),
+                getShownWidth(options.outWidth, options.outHeight, reqWidth, reqHeight), blurRadius);
+    }
+
+    /**
+     * Decode and blur an image file
+     * @param file Image file
+     * @param reqWidth Width the result is shown at, 0 for the image width
+     * @param reqHeight Height the result is shown at, 0 for the image height
+     * @param blurRadius Blur radius in pixels of the requested size
+     * @return Blurred bitmap, smaller than requested, or null if decoding failed
+     */
+    @Nullable
+    public static Bitmap decodeFile(@NonNull File file, int reqWidth, int reqHeight, float blurRadius) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            return decode(ImageDecoder.createSource(file), reqWidth, reqHeight, blurRadius);
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        prepareOptions(options, reqWidth, reqHeight, blurRadius);
+        return blur(BitmapFactory.decodeFile(file.getPath(), options),
+                getShownWidth(options.outWidth, options.outHeight, reqWidth, reqHeight), blurRadius);
+    }
+
+    @RequiresApi(Build.VERSION_CODES.P)
+    private static Bitmap decode(ImageDecoder.Source source, int reqWidth, int reqHeight, float blurRadius) {
+        int[] shownWidth = new int[1];
+        try {
+            Bitmap bitmap = ImageDecoder.decodeBitmap(source, (decoder, info, src) -> {
+                Size size = info.getSize();
+                shownWidth[0] = getShownWidth(size.getWidth(), size.getHeight(), reqWidth, reqHeight);
+                float scale = getScale(size.getWidth(), size.getHeight(), reqWidth, reqHeight, blurRadius);
+                decoder.setTargetSize(Math.max(1, Math.round(size.getWidth() * scale)),
+                        Math.max(1, Math.round(size.getHeight() * scale)));
+                // A PostProcessor only gets a Canvas, the blur needs the pixels of a mutable software bitmap
+                decoder.setAllocator(ImageDecoder.ALLOCATOR_SOFTWARE);
+                decoder.setMutableRequired(true);
+            });
+            return blur(bitmap, shownWidth[0], blurRadius);
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to decode image: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void prepareOptions(BitmapFactory.Options options, int reqWidth, int reqHeight, float blurRadius) {
+        float scale = getScale(options.outWidth, options.outHeight, reqWidth, reqHeight, blurRadius);
+        int sampleSize = 1;
+        while (sampleSize * 2 <= 1f / scale) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        options.inMutable = true;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+    }
+
+    /**
+     * Scale from the image to the size it is shown at, fitting it inside the requested size
+     */
+    private static float getFit(int width, int height, int reqWidth, int reqHeight) {
+        if (width <= 0 || height <= 0) return 1f;
+        return Math.min(reqWidth > 0 ? (float) reqWidth / width : 1f, reqHeight > 0 ? (float) reqHeight / height : 1f);
+    }
+
+    private static int getShownWidth(int width, int height, int reqWidth, int reqHeight) {
+        return Math.round(width * getFit(width, height, reqWidth, reqHeight));
+    }
+
+    /**
+     * Scale from the image to the decoded bitmap, the shown size divided by the blur factor
+     */
+    private static float getScale(int width, int height, int reqWidth, int reqHeight, float blurRadius) {
+        float factor = Math.max(1f, Math.min(MAX_FACTOR, blurRadius / TARGET_RADIUS));
+        return Math.min(1f, getFit(width, height, reqWidth, reqHeight) / factor);
+    }
+
+    private static Bitmap blur(Bitmap bitmap, int shownWidth, float blurRadius) {
+        if (bitmap == null) return null;
+        if (!bitmap.isMutable() || bitmap.getConfig() != Bitmap.Config.ARGB_8888) {
+            Bitmap copy = bitmap.copy(Bitmap.Config.ARGB_8888, true);
+            bitmap.recycle();
+            if (copy == null) return null;
+            bitmap = copy;
+        }
+
+        // The radius is given for the shown size, follow the size actually decoded
+        float radius = shownWidth > 0 ? blurRadius * bitmap.getWidth() / shownWidth : blurRadius;
+        BLUR_NATIVE.blur(bitmap, bitmap, radius, BLUR_NATIVE.getBlurRounds());
+        return bitmap;
+    }
+}
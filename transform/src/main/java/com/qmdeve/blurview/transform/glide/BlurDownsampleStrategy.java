@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025-2026 Donny Yale
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * ===========================================
+ * Project: QmBlurView
+ * Created Date: 2025-10-21
+ * Author: Donny Yale
+ * GitHub: https://github.com/QmDeve/QmBlurView
+ * Website: https://blurview.qmdeve.com
+ * ===========================================
+ */
+
+package com.qmdeve.blurview.transform.glide;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.load.resource.bitmap.DownsampleStrategy;
+import com.bumptech.glide.request.RequestOptions;
+
+/**
+ * Decodes images that are going to be blurred smaller than the requested size.
+ * A blurred image loses its fine detail anyway, so the decoder can subsample
+ * by a factor derived from the blur radius, saving decode time and peak memory.
+ * Pair it with {@link BlurTransformation#forTargetSize}, or use {@link #blurOptions}
+ */
+public class BlurDownsampleStrategy extends DownsampleStrategy {
+
+    // Blur radius, in pixels of the decoded bitmap, the subsampling aims for
+    private static final float TARGET_RADIUS = 6f;
+    private static final float MAX_FACTOR = 8f;
+
+    private final DownsampleStrategy base;
+    private final float blurRadius;
+
+    public BlurDownsampleStrategy(float blurRadius) {
+        this(DownsampleStrategy.DEFAULT, blurRadius);
+    }
+
+    /**
+     * @param base Strategy deciding the size before subsampling
+     * @param blurRadius Blur radius in pixels of the requested size
+     */
+    public BlurDownsampleStrategy(@NonNull DownsampleStrategy base, float blurRadius) {
+        this.base = base;
+        this.blurRadius = blurRadius;
+    }
+
+    /**
+     * Options that decode subsampled for the blur and blur with the matching radius
+     * @param blurRadius Blur radius in pixels of the requested size
+     * @param roundedCorners Corner radius in pixels of the requested size
+     * @return Request options
+     */
+    @NonNull
+    public static RequestOptions blurOptions(float blurRadius, float roundedCorners) {
+        return new RequestOptions()
+                .downsample(new BlurDownsampleStrategy(blurRadius))
+                .transform(BlurTransformation.forTargetSize(blurRadius, roundedCorners));
+    }
+
+    @Override
+    public float getScaleFactor(int sourceWidth, int sourceHeight, int requestedWidth, int requestedHeight) {
+        float factor = Math.max(1f, Math.min(MAX_FACTOR, blurRadius / TARGET_RADIUS));
+        return base.getScaleFactor(sourceWidth, sourceHeight, requestedWidth, requestedHeight) / factor;
+    }
+
+    @NonNull
+    @Override
+    public SampleSizeRounding getSampleSizeRounding(int sourceWidth, int sourceHeight, int requestedWidth, int requestedHeight) {
+        // A smaller bitmap than asked for is fine, the blur hides it
+        return SampleSizeRounding.MEMORY;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof BlurDownsampleStrategy) {
+            BlurDownsampleStrategy other = (BlurDownsampleStrategy) o;
+            return base.equals(other.base) && Math.abs(blurRadius - other.blurRadius) < 0.01f;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return base.hashCode() * 31 + Float.valueOf(blurRadius).hashCode();
+    }
+}
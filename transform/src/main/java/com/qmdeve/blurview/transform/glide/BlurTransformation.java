@@ -43,6 +43,7 @@ import androidx.annotation.NonNull;
 
 import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
 import com.bumptech.glide.load.resource.bitmap.BitmapTransformation;
+import com.qmdeve.blurview.BlurCache;
 import com.qmdeve.blurview.BlurNative;
 
 import java.security.MessageDigest;
@@ -52,8 +53,14 @@ public class BlurTransformation extends BitmapTransformation {
     private static final String ID = "com.qmdeve.blurview.transform.glide.BlurTransformation";
     private static final byte[] ID_BYTES = ID.getBytes(CHARSET);
     private static final BlurNative BLUR_NATIVE = new BlurNative();
+    // Effective blur radius the automatic downsample aims for
+    private static final float AUTO_TARGET_RADIUS = 6f;
+    private static final float MAX_DOWNSAMPLE = 16f;
     private final float blurRadius;
     private final float roundedCorners;
+    private final float downsampleFactor;
+    private final boolean upscale;
+    private final boolean targetRelative;
 
     public BlurTransformation() {
         this(25f, 0f);
@@ -64,8 +71,39 @@ public class BlurTransformation extends BitmapTransformation {
     }
 
     public BlurTransformation(float blurRadius, float roundedCorners) {
+        // Blurs at full size, downsampling changes the result and is opt-in
+        this(blurRadius, roundedCorners, 1f, false);
+    }
+
+    /**
+     * @param blurRadius Blur radius in pixels of the source
+     * @param roundedCorners Corner radius in pixels of the source
+     * @param downsampleFactor Blur a copy this many times smaller, 0 picks one from radius and target size
+     * @param upscale Scale the result back to the source size instead of returning the downsampled bitmap
+     */
+    public BlurTransformation(float blurRadius, float roundedCorners, float downsampleFactor, boolean upscale) {
+        this(blurRadius, roundedCorners, downsampleFactor, upscale, false);
+    }
+
+    private BlurTransformation(float blurRadius, float roundedCorners, float downsampleFactor,
+                               boolean upscale, boolean targetRelative) {
         this.blurRadius = blurRadius;
         this.roundedCorners = roundedCorners;
+        this.downsampleFactor = downsampleFactor;
+        this.upscale = upscale;
+        this.targetRelative = targetRelative;
+    }
+
+    /**
+     * Transformation for images decoded through {@link BlurDownsampleStrategy}.
+     * Radii are given in pixels of the requested size and scaled to whatever size
+     * the decoder produced, the decoded bitmap is blurred as is
+     * @param blurRadius Blur radius in pixels of the requested size
+     * @param roundedCorners Corner radius in pixels of the requested size
+     * @return Transformation
+     */
+    public static BlurTransformation forTargetSize(float blurRadius, float roundedCorners) {
+        return new BlurTransformation(blurRadius, roundedCorners, 1f, false, true);
     }
 
     @Override
@@ -77,28 +115,48 @@ public class BlurTransformation extends BitmapTransformation {
         int width = toTransform.getWidth();
         int height = toTransform.getHeight();
 
+        // Radii relative to the requested size follow the size the decoder actually produced
+        float sourceScale = targetRelative
+                ? Math.min((float) width / Math.max(1, outWidth), (float) height / Math.max(1, outHeight))
+                : 1f;
+        float radius = blurRadius * sourceScale;
+
+        // A blur of a smaller copy scaled back up looks the same and touches far fewer pixels
+        float factor = resolveDownsample(width, height, outWidth, outHeight);
+        int scaledWidth = Math.max(1, Math.round(width / factor));
+        int scaledHeight = Math.max(1, Math.round(height / factor));
+
         // Get a bitmap from the pool to reuse memory
         Bitmap.Config config = getSafeConfig(toTransform);
-        Bitmap blurred = pool.get(width, height, config);
+        Bitmap blurred = pool.get(scaledWidth, scaledHeight, config);
 
-        boolean blurSuccess = false;
+        boolean upscaled = upscale && (scaledWidth != width || scaledHeight != height);
+        // Corners of a bitmap that is returned as blurred are cut by the blur itself
+        float cornerRadius = roundedCorners * sourceScale / factor;
+        float fusedCorners = !upscaled && config == Bitmap.Config.ARGB_8888 ? cornerRadius : 0f;
 
-        // Prepare and apply blur
-        if (BLUR_NATIVE.prepare(blurred, blurRadius)) {
-            BLUR_NATIVE.blur(toTransform, blurred);
-            blurSuccess = true;
+        int rounds = BLUR_NATIVE.getBlurRounds();
+        BlurCache.Key key = BlurCache.key(toTransform, radius, rounds, factor, fusedCorners);
+        if (!BlurCache.getInto(key, blurred)) {
+            drawScaled(toTransform, blurred);
+            // Per-call parameters, decodes on other threads share BLUR_NATIVE concurrently
+            // A cancelled blur is incomplete and must not be cached
+            if (BLUR_NATIVE.blur(blurred, blurred, radius / factor, rounds, fusedCorners)) {
+                BlurCache.put(key, blurred);
+            }
         }
 
-        if (!blurSuccess) {
-            if (blurred != toTransform) {
-                pool.put(blurred);
-            }
-            return toTransform;
+        if (upscaled) {
+            Bitmap upscaledBitmap = pool.get(width, height, config);
+            drawScaled(blurred, upscaledBitmap);
+            pool.put(blurred);
+            blurred = upscaledBitmap;
+            cornerRadius = roundedCorners * sourceScale;
         }
 
         // Apply corner radius if needed
-        if (roundedCorners > 0) {
-            Bitmap rounded = applyCornerRadius(pool, blurred, roundedCorners);
+        if (roundedCorners > 0 && fusedCorners == 0f) {
+            Bitmap rounded = applyCornerRadius(pool, blurred, cornerRadius);
             if (rounded != blurred) {
                 pool.put(blurred); // Return the blurred bitmap to pool
             }
@@ -108,6 +166,27 @@ public class BlurTransformation extends BitmapTransformation {
         return blurred;
     }
 
+    /**
+     * Pick the downsample factor, the explicit one or one from blur radius and target size
+     */
+    private float resolveDownsample(int width, int height, int outWidth, int outHeight) {
+        float factor;
+        if (downsampleFactor > 0) {
+            factor = downsampleFactor;
+        } else {
+            // Pixels beyond the target size are never shown, then shrink until the radius is small
+            float display = Math.max(1f, Math.min((float) width / Math.max(1, outWidth), (float) height / Math.max(1, outHeight)));
+            factor = display * Math.max(1f, blurRadius / display / AUTO_TARGET_RADIUS);
+        }
+        return Math.max(1f, Math.min(MAX_DOWNSAMPLE, factor));
+    }
+
+    private static void drawScaled(Bitmap source, Bitmap target) {
+        Canvas canvas = new Canvas(target);
+        canvas.scale((float) target.getWidth() / source.getWidth(), (float) target.getHeight() / source.getHeight());
+        canvas.drawBitmap(source, 0, 0, new Paint(Paint.FILTER_BITMAP_FLAG));
+    }
+
     /**
      * Apply corner radius to bitmap using Glide's BitmapPool
      */
@@ -143,6 +222,12 @@ public class BlurTransformation extends BitmapTransformation {
         // Include blur radius and corner radius in cache key
         messageDigest.update(Float.toString(blurRadius).getBytes(CHARSET));
         messageDigest.update(Float.toString(roundedCorners).getBytes(CHARSET));
+        // A full size blur keeps the key of earlier versions, results cached by them stay valid
+        if (downsampleFactor != 1f || targetRelative) {
+            messageDigest.update(Float.toString(downsampleFactor).getBytes(CHARSET));
+            messageDigest.update((byte) (upscale ? 1 : 0));
+            messageDigest.update((byte) (targetRelative ? 1 : 0));
+        }
     }
 
     @Override
@@ -150,7 +235,10 @@ public class BlurTransformation extends BitmapTransformation {
         if (o instanceof BlurTransformation) {
             BlurTransformation other = (BlurTransformation) o;
             return Math.abs(blurRadius - other.blurRadius) < 0.01f &&
-                    Math.abs(roundedCorners - other.roundedCorners) < 0.01f;
+                    Math.abs(roundedCorners - other.roundedCorners) < 0.01f &&
+                    Math.abs(downsampleFactor - other.downsampleFactor) < 0.01f &&
+                    upscale == other.upscale &&
+                    targetRelative == other.targetRelative;
         }
         return false;
     }
@@ -159,7 +247,10 @@ public class BlurTransformation extends BitmapTransformation {
     public int hashCode() {
         return ID.hashCode() +
                 Float.valueOf(blurRadius).hashCode() +
-                Float.valueOf(roundedCorners).hashCode();
+                Float.valueOf(roundedCorners).hashCode() +
+                Float.valueOf(downsampleFactor).hashCode() +
+                (upscale ? 1 : 0) +
+                (targetRelative ? 2 : 0);
     }
 
     /**
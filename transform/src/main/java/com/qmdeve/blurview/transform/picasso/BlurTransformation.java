@@ -30,23 +30,24 @@
  * ===========================================
  */
 
+
 package com.qmdeve.blurview.transform.picasso;
 
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffXfermode;
-import android.graphics.RectF;
 import androidx.annotation.NonNull;
 
+import com.qmdeve.blurview.BlurCache;
 import com.qmdeve.blurview.BlurNative;
 import com.squareup.picasso.Transformation;
 
 public class BlurTransformation implements Transformation {
     private static final BlurNative BLUR_NATIVE = new BlurNative();
+    private static final Paint SCALE_PAINT = new Paint(Paint.FILTER_BITMAP_FLAG);
     private final float blurRadius;
     private final float roundedCorners;
+    private final float downsampleFactor;
 
     public BlurTransformation() {
         this(25f, 0f);
@@ -57,8 +58,20 @@ public class BlurTransformation implements Transformation {
     }
 
     public BlurTransformation(float blurRadius, float roundedCorners) {
+        this(blurRadius, roundedCorners, 1f);
+    }
+
+    /**
+     * A mutable ARGB_8888 source is blurred in place. Any other source costs one new bitmap
+     * of the output size, a downsample factor above 1 keeps that bitmap small
+     * @param blurRadius Blur radius in pixels of the source
+     * @param roundedCorners Corner radius in pixels of the source
+     * @param downsampleFactor Blur and return a copy this many times smaller, 1 keeps the source size
+     */
+    public BlurTransformation(float blurRadius, float roundedCorners, float downsampleFactor) {
         this.blurRadius = blurRadius;
         this.roundedCorners = roundedCorners;
+        this.downsampleFactor = Math.max(1f, downsampleFactor);
     }
 
     @NonNull
@@ -67,6 +80,7 @@ public class BlurTransformation implements Transformation {
         Bitmap result = createBlurredBitmap(source);
 
         if (result != source) {
+            // Picasso requires the source to be recycled when a new bitmap is returned
             source.recycle();
         }
 
@@ -78,52 +92,56 @@ public class BlurTransformation implements Transformation {
             return source;
         }
 
-        int width = source.getWidth();
-        int height = source.getHeight();
+        int width = Math.max(1, Math.round(source.getWidth() / downsampleFactor));
+        int height = Math.max(1, Math.round(source.getHeight() / downsampleFactor));
 
-        Bitmap blurred = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        // Blur a mutable source in place, the only case without a new bitmap. Picasso decodes
+        // immutable bitmaps, requests with resize() usually arrive mutable from its scaling step
+        boolean sameSize = width == source.getWidth() && height == source.getHeight();
+        boolean inPlace = sameSize && source.isMutable() && source.getConfig() == Bitmap.Config.ARGB_8888;
 
+        // The corners are cut by the final blur pass, no separate mask step
+        float cornerRadius = roundedCorners / downsampleFactor;
+        Bitmap blurred = null;
         try {
-            if (BLUR_NATIVE.prepare(blurred, blurRadius)) {
-                BLUR_NATIVE.blur(source, blurred);
-            } else {
-                blurred.recycle();
-                return source;
+            int rounds = BLUR_NATIVE.getBlurRounds();
+            BlurCache.Key key = BlurCache.key(source, blurRadius, rounds, downsampleFactor, cornerRadius);
+            boolean filled = inPlace;
+            if (inPlace) {
+                blurred = source;
+            } else if (sameSize && BlurCache.get(key) == null) {
+                // One copy of the pixels, instead of clearing a new bitmap and drawing into it
+                blurred = source.copy(Bitmap.Config.ARGB_8888, true);
+                filled = blurred != null;
+            }
+            if (blurred == null) blurred = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+
+            if (!BlurCache.getInto(key, blurred)) {
+                if (!filled) drawScaled(source, blurred);
+                // Per-call parameters, requests on other threads share BLUR_NATIVE concurrently
+                // A cancelled blur is incomplete and must not be cached
+                if (BLUR_NATIVE.blur(blurred, blurred, blurRadius / downsampleFactor, rounds, cornerRadius)) {
+                    BlurCache.put(key, blurred);
+                }
             }
         } catch (Exception e) {
-            blurred.recycle();
+            if (blurred != null && blurred != source) blurred.recycle();
             return source;
         }
 
-        if (roundedCorners > 0) {
-            Bitmap rounded = applyCornerRadius(blurred, roundedCorners);
-            if (rounded != blurred) {
-                blurred.recycle();
-            }
-            return rounded;
-        }
-
         return blurred;
     }
 
-    private Bitmap applyCornerRadius(Bitmap bitmap, float radius) {
-        int width = bitmap.getWidth();
-        int height = bitmap.getHeight();
-        Bitmap output = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-
-        Canvas canvas = new Canvas(output);
-        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        RectF rect = new RectF(0, 0, width, height);
-
-        canvas.drawRoundRect(rect, radius, radius, paint);
-        paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_IN));
-        canvas.drawBitmap(bitmap, 0, 0, paint);
-
-        return output;
+    private static void drawScaled(Bitmap source, Bitmap target) {
+        target.eraseColor(0);
+        Canvas canvas = new Canvas(target);
+        canvas.scale((float) target.getWidth() / source.getWidth(), (float) target.getHeight() / source.getHeight());
+        canvas.drawBitmap(source, 0, 0, SCALE_PAINT);
     }
 
     @Override
     public String key() {
-        return "blur_" + blurRadius + "_corner_" + roundedCorners;
+        String key = "blur_" + blurRadius + "_corner_" + roundedCorners;
+        return downsampleFactor > 1f ? key + "_downsample_" + downsampleFactor : key;
     }
-}
\ No newline at end of file
+}